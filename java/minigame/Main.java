@@ -3,19 +3,37 @@ package minigame;
 import lombok.Getter;
 import minigame.game.Minigame;
 import minigame.game.MinigameManager;
+import minigame.game.SchematicCache;
+import minigame.game.GameEventBus;
+import minigame.game.ArenaBuilder;
+import minigame.game.BlockChangeBuffer;
+import minigame.game.RegionSnapshot;
+import minigame.game.ReplayViewer;
+import minigame.game.ai.AIPlayer;
+import minigame.game.child.Connect4Board;
 import minigame.io.InputOutputManager;
+import minigame.io.ReplayFile;
+import minigame.io.ReplayLog;
+import minigame.lobby.MatchQueue;
+import minigame.lobby.TeamBalancer;
 import minigame.player.PlayerManager;
 import minigame.util.GlobalSettings;
+import minigame.util.TimerWheel;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+
 public final class Main extends JavaPlugin
 {
 	@Getter
 	private static JavaPlugin instance;
+	private final AtomicBoolean connect4Benchmark = new AtomicBoolean();//One at a time, each search table is ~22MB
 
 	public Main() {
 		instance = this;
@@ -28,7 +46,12 @@ public final class Main extends JavaPlugin
 		this.getConfig().options().copyDefaults(true);
 		this.saveConfig();
 		InputOutputManager.enable();
+		TimerWheel.enable();
+		AIPlayer.enable();
+		GameEventBus.enable();
+		SchematicCache.preload();
 		MinigameManager.findRegions();
+		MinigameManager.prepareArenas();
 		PlayerManager.enable();
 		GlobalSettings.getMinigameWorld().setAutoSave(false);
 	}
@@ -40,7 +63,10 @@ public final class Main extends JavaPlugin
 	
 	@Override
 	public void onDisable() {
-
+		PlayerManager.disable();
+		InputOutputManager.disable();
+		TimerWheel.disable();
+		AIPlayer.disable();
 	}
 	
 	//Handles our plugin's command, /report
@@ -54,6 +80,151 @@ public final class Main extends JavaPlugin
 					MinigameManager.killAllGames();
 					break;
 
+				case "rebuildratings":
+					p.sendMessage("Rebuilding player ratings from game history...");
+					InputOutputManager.rebuildRatingsAsync().whenComplete((rows, e) ->
+						Bukkit.getScheduler().runTask(this, () -> {
+							if(e != null) {
+								getLogger().log(Level.SEVERE, "Failed to rebuild player ratings", e);
+								p.sendMessage("Failed to rebuild player ratings, see the console for details.");
+							} else {
+								p.sendMessage("Rebuilt "+rows+" player ratings. Online players will see them on their next login.");
+							}
+						})
+					);
+					return true;
+
+				case "minigamestats":
+					if(args.length > 0 && args[0].equalsIgnoreCase("connect4")) {
+						int depth;
+						try {
+							depth = args.length > 1 ? Integer.parseInt(args[1]) : 12;
+						} catch(NumberFormatException e) {
+							p.sendMessage("Usage: /minigamestats connect4 [depth]");
+							return true;
+						}
+						if(!connect4Benchmark.compareAndSet(false, true)) {
+							p.sendMessage("The Connect 4 benchmark is already running.");
+							return true;
+						}
+						p.sendMessage("Running the Connect 4 benchmark...");
+						Bukkit.getScheduler().runTaskAsynchronously(this, () -> {//Searches for up to 10 seconds
+							try {
+								List<String> lines = Connect4Board.benchmark(depth);
+								Bukkit.getScheduler().runTask(this, () -> lines.forEach(p::sendMessage));
+							} finally {
+								connect4Benchmark.set(false);
+							}
+						});
+						return true;
+					}
+					if(args.length > 0 && args[0].equalsIgnoreCase("replay")) {
+						int events;
+						try {
+							events = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+						} catch(NumberFormatException e) {
+							events = 0;
+						}
+						if(events < 1 || events > 10_000_000) {
+							p.sendMessage("Usage: /minigamestats replay [events (1-10000000)]");
+							return true;
+						}
+						int eventCount = events;
+						p.sendMessage("Running the replay log benchmark...");
+						Bukkit.getScheduler().runTaskAsynchronously(this, () -> {//The log isn't written anywhere, so nothing is shared
+							List<String> lines = ReplayLog.benchmark(eventCount);
+							Bukkit.getScheduler().runTask(this, () -> lines.forEach(p::sendMessage));
+						});
+						return true;
+					}
+					if(args.length > 0 && args[0].equalsIgnoreCase("balance")) {
+						int players, teams;
+						try {
+							players = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+							teams = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+						} catch(NumberFormatException e) {
+							players = teams = 0;
+						}
+						if(players < 1 || players > 1000 || teams < 1) {
+							p.sendMessage("Usage: /minigamestats balance [players (1-1000)] [teams]");
+							return true;
+						}
+						int playerCount = players, teamCount = Math.min(teams, players);
+						p.sendMessage("Running the team balancing benchmark...");
+						Bukkit.getScheduler().runTaskAsynchronously(this, () -> {//100 splits, each allowed the full balancing time
+							List<String> lines = TeamBalancer.benchmark(playerCount, teamCount, 100);
+							Bukkit.getScheduler().runTask(this, () -> lines.forEach(p::sendMessage));
+						});
+						return true;
+					}
+					for(String line : InputOutputManager.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : GameEventBus.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : SchematicCache.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : BlockChangeBuffer.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : TimerWheel.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : MinigameManager.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : ArenaBuilder.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : RegionSnapshot.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : TeamBalancer.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : MatchQueue.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : AIPlayer.getStats()) {
+						p.sendMessage(line);
+					}
+					for(String line : ReplayViewer.getStats()) {
+						p.sendMessage(line);
+					}
+					return true;
+
+				case "minigamereplay":
+					if(args.length == 0 || args[0].equalsIgnoreCase("list")) {
+						List<String> replays = ReplayFile.list(10);
+						p.sendMessage(replays.isEmpty() ? "No replays have been recorded yet." : "Recent replays: "+String.join(", ", replays));
+						return true;
+					}
+					if(args[0].equalsIgnoreCase("stop")) {
+						if(!ReplayViewer.stop(p)) {p.sendMessage("You are not watching a replay.");}
+						return true;
+					}
+					try {
+						if(args[0].equalsIgnoreCase("speed")) {
+							if(args.length < 2) {return false;}
+							if(!ReplayViewer.setSpeed(p, Double.parseDouble(args[1]))) {p.sendMessage("You are not watching a replay.");}
+							return true;
+						}
+						ReplayViewer.start(p, args[0], args.length > 2 ? args[2] : null, args.length > 1 ? Double.parseDouble(args[1]) : 1);
+					} catch(NumberFormatException e) {
+						return false;
+					}
+					return true;
+
+				case "reloadschematics":
+					int reloaded = SchematicCache.preload();
+					if(reloaded > 0) {
+						MinigameManager.reloadArenas();
+					}
+					p.sendMessage("Reloaded "+reloaded+" changed schematic(s).");
+					return true;
+
 				case "tickets":
 				case "tokens":
 					Player victim = Bukkit.getPlayer(args[0]);
@@ -0,0 +1,99 @@
+package minigame.game;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import minigame.Main;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pastes a large clipboard over several ticks, one 16x16x16 chunk section at a time, stopping each tick once its
+ * time budget is spent. Keeps a scaled arena from freezing the server for the tick a game starts in.
+ */
+public class ArenaBuilder extends BukkitRunnable {
+    private final EditSession editSession;
+    private final Clipboard clipboard;
+    private final BlockVector3 offset; //Clipboard position -> world position
+    private final List<CuboidRegion> slices = new ArrayList<>(); //In clipboard coordinates
+    private final long budgetNanos;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    private int next = 0;
+    private int ticks = 0;
+
+    //Metrics, across every build
+    private static long builds = 0;
+    private static long blocksBuilt = 0;
+    private static int lastBuildTicks = 0;
+    private static int longestBuildTicks = 0;
+
+    private ArenaBuilder(EditSession editSession, Clipboard clipboard, BlockVector3 to, int millisPerTick) {
+        this.editSession = editSession;
+        this.clipboard = clipboard;
+        this.offset = to.subtract(clipboard.getOrigin());
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(millisPerTick);
+
+        //Cut the clipboard along the world's chunk section borders
+        BlockVector3 min = clipboard.getMinimumPoint().add(offset);
+        BlockVector3 max = clipboard.getMaximumPoint().add(offset);
+        for(int sx = min.getX() >> 4; sx <= max.getX() >> 4; sx++) {
+            for(int sz = min.getZ() >> 4; sz <= max.getZ() >> 4; sz++) {
+                for(int sy = min.getY() >> 4; sy <= max.getY() >> 4; sy++) {
+                    BlockVector3 sliceMin = BlockVector3.at(sx << 4, sy << 4, sz << 4).getMaximum(min);
+                    BlockVector3 sliceMax = BlockVector3.at((sx << 4) + 15, (sy << 4) + 15, (sz << 4) + 15).getMinimum(max);
+                    slices.add(new CuboidRegion(sliceMin.subtract(offset), sliceMax.subtract(offset)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts pasting the clipboard from next tick
+     * @param to Where the clipboard's origin goes
+     * @param millisPerTick Time each tick may spend pasting
+     * @return Completes on the main thread once every block has been set
+     */
+    public static CompletableFuture<Void> build(EditSession editSession, Clipboard clipboard, BlockVector3 to, int millisPerTick) {
+        ArenaBuilder builder = new ArenaBuilder(editSession, clipboard, to, millisPerTick);
+        builder.runTaskTimer(Main.getInstance(), 1, 1);
+        return builder.done;
+    }
+
+    @Override
+    public void run() {
+        ticks++;
+        long deadline = System.nanoTime() + budgetNanos;
+        try {
+            do {
+                for(BlockVector3 pos : slices.get(next++)) {
+                    editSession.setBlock(pos.add(offset), clipboard.getFullBlock(pos));
+                    blocksBuilt++;
+                }
+            } while(next < slices.size() && System.nanoTime() < deadline);
+            editSession.flushSession();
+        } catch(WorldEditException e) {
+            cancel();
+            done.completeExceptionally(e);
+            return;
+        }
+        if(next < slices.size()) {return;}
+
+        cancel();
+        builds++;
+        lastBuildTicks = ticks;
+        longestBuildTicks = Math.max(longestBuildTicks, ticks);
+        done.complete(null);
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Arena builds: "+builds+" ("+blocksBuilt+" blocks), last took "+lastBuildTicks+" ticks, longest "+longestBuildTicks+" ticks");
+        return stats;
+    }
+}
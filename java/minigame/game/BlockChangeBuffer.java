@@ -0,0 +1,126 @@
+package minigame.game;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import minigame.Main;
+import minigame.io.ReplayLog;
+import minigame.util.Misc;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects every block a Minigame changes during a tick and applies them together with a single EditSession flush,
+ * from a scheduler task at the start of the next tick. That is still before the worlds tick and send block updates
+ * to clients, so Players see the changes no later than if they were set straight away. A position written several
+ * times before the flush (e.g. a piece jumping over another) is only set once, to its final block.
+ */
+public class BlockChangeBuffer {
+    private static final BaseBlock AIR = BlockTypes.AIR.getDefaultState().toBaseBlock();
+
+    private final EditSession editSession;
+    private final Map<BlockVector3, BaseBlock> pending = new LinkedHashMap<>();
+    private int queued = 0; //Changes queued since the last flush, including overwritten ones
+    private boolean scheduled = false;
+    private boolean held = false; //Changes are kept queued while the arena underneath is still being built
+    private RegionSnapshot snapshot; //Told about every block we change, so the arena can be restored afterwards
+    private ReplayLog replay; //Told about every block we change, so the game can be replayed
+
+    //Metrics, across every game
+    private static long flushes = 0;
+    private static long blocksChanged = 0;
+    private static long blocksDeduplicated = 0;
+    private static int largestFlush = 0;
+    private static int lastFlush = 0;
+
+    public BlockChangeBuffer(EditSession editSession) {
+        this.editSession = editSession;
+    }
+
+    public void setSnapshot(RegionSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public void setReplay(ReplayLog replay) {
+        this.replay = replay;
+    }
+
+    //Keeps every change queued until release(), e.g. while the arena underneath is still being built
+    public void hold() {
+        held = true;
+    }
+
+    //Applies everything queued while held
+    public void release() {
+        held = false;
+        flush();
+    }
+
+    public void set(BlockVector3 pos, BaseBlock block) {
+        pending.put(pos, block);
+        queued++;
+        if(!scheduled) {
+            scheduled = true;
+            Bukkit.getScheduler().runTask(Main.getInstance(), this::flush);
+        }
+    }
+
+    public void setAir(BlockVector3 pos) {
+        set(pos, AIR);
+    }
+
+    /**
+     * Queues every block of the clipboard, air included
+     * @param to Where the clipboard's origin goes
+     */
+    public void paste(Clipboard clipboard, BlockVector3 to) {
+        BlockVector3 offset = to.subtract(clipboard.getOrigin());
+        for(BlockVector3 pos : clipboard.getRegion()) {
+            set(pos.add(offset), clipboard.getFullBlock(pos));
+        }
+    }
+
+    /**
+     * Applies every queued change now. Called automatically at the start of the next tick, but also needed before anything
+     * that reads the world or the EditSession's history (e.g. undo).
+     */
+    public void flush() {
+        scheduled = false;
+        if(held || pending.isEmpty()) {return;}
+        try {
+            for(Map.Entry<BlockVector3, BaseBlock> change : pending.entrySet()) {
+                editSession.setBlock(change.getKey(), change.getValue());
+                if(snapshot != null) {
+                    snapshot.markDirty(change.getKey().getX(), change.getKey().getY(), change.getKey().getZ());
+                }
+                if(replay != null) {
+                    replay.block(change.getKey().getX(), change.getKey().getY(), change.getKey().getZ(), change.getValue().toImmutableState());
+                }
+            }
+            editSession.flushSession();
+        } catch(WorldEditException e) {
+            Main.getInstance().getLogger().severe("Failed to apply "+pending.size()+" block changes: "+Misc.getError(e));
+        }
+        flushes++;
+        blocksChanged += pending.size();
+        blocksDeduplicated += queued - pending.size();
+        lastFlush = pending.size();
+        largestFlush = Math.max(largestFlush, lastFlush);
+        pending.clear();
+        queued = 0;
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Block changes: "+blocksChanged+" blocks in "+flushes+" flushes (avg "+(flushes == 0 ? 0 : blocksChanged/flushes)+
+                ", last "+lastFlush+", max "+largestFlush+"), "+blocksDeduplicated+" overwrites skipped");
+        return stats;
+    }
+}
@@ -0,0 +1,258 @@
+package minigame.game;
+
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import minigame.Main;
+import minigame.lobby.MinigameLobby;
+import minigame.util.RegionIndex;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.entity.ProjectileHitEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The only Bukkit listener for Minigame events. Each event is handed straight to the game that owns it - found through
+ * MinigameManager's Player->game map, or through a chunk-keyed index of game & lobby regions for events about a place -
+ * so the cost of an event doesn't grow with the number of games running, and starting or ending a game never touches
+ * Bukkit's handler lists.
+ */
+public class GameEventBus implements Listener {
+    private static final RegionIndex<MinigameLobby> lobbyIndex = new RegionIndex<>();
+    private static final RegionIndex<Minigame> gameIndex = new RegionIndex<>();
+    private static final RegionIndex<MinigameLobby> doorIndex = new RegionIndex<>();//Lobbies whose doors are kept indexed
+    private static final Map<String, MinigameLobby> lobbies = new HashMap<>();//By lobby ID
+    private static final BlockData AIR = Bukkit.createBlockData(Material.AIR);
+
+    //Reused for every event; Bukkit only fires these on the main thread
+    private static final List<MinigameLobby> lobbyTargets = new ArrayList<>();
+    private static final List<Minigame> gameTargets = new ArrayList<>();
+
+    //Metrics
+    private static long events = 0;
+    private static long moves = 0;
+    private static long dispatches = 0;
+    private static long avoided = 0; //Callbacks that every lobby/game listening to every event would have made
+
+    public static void enable() {
+        Bukkit.getServer().getPluginManager().registerEvents(new GameEventBus(), Main.getInstance());
+    }
+
+    public static void register(MinigameLobby lobby, ProtectedRegion lobbyArea) {
+        lobbies.put(lobby.getLobbyID(), lobby);
+        lobbyIndex.add(lobbyArea, lobby);
+    }
+
+    public static void registerDoors(MinigameLobby lobby, ProtectedRegion doorArea) {
+        doorIndex.add(doorArea, lobby);
+    }
+
+    public static void register(Minigame m) {
+        gameIndex.add(m.getGameArea(), m);
+    }
+
+    public static void unregister(Minigame m) {
+        gameIndex.remove(m);
+    }
+
+    /*
+        Events about a Player - routed to the game they are playing
+     */
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent e) {
+        Minigame m = MinigameManager.getGame(e.getPlayer());
+        if(m != null) {m.onPlayerQuit(e);}
+        count(m == null ? 0 : 1, 0);
+    }
+
+    @EventHandler
+    public void onPlayerDeath(PlayerDeathEvent e) {
+        Minigame m = MinigameManager.getGame(e.getEntity());
+        if(m != null) {m.onPlayerDeath(e);}
+        count(m == null ? 0 : 1, 0);
+    }
+
+    @EventHandler(priority = EventPriority.LOWEST)
+    public void onEntityDamage(EntityDamageEvent e) {
+        Minigame m = e.getEntity() instanceof Player ? MinigameManager.getGame((Player) e.getEntity()) : null;
+        if(m != null) {m.onPlayerDamage(e);}
+        count(m == null ? 0 : 1, 0);
+    }
+
+    @EventHandler
+    public void onEntityDamageByEntity(EntityDamageByEntityEvent e) {
+        Minigame m = e.getEntity() instanceof Player ? MinigameManager.getGame((Player) e.getEntity()) : null;
+        if(m != null) {
+            m.onEntityDamageByEntity(e);
+            m.playerHit(e);
+        }
+        count(m == null ? 0 : 1, 0);
+    }
+
+    @EventHandler
+    public void onProjectileHit(ProjectileHitEvent e) {
+        Minigame m = e.getEntity().getShooter() instanceof Player ?
+                MinigameManager.getGame((Player) e.getEntity().getShooter()) : null;
+        if(m != null) {m.onProjectileHit(e);}
+        count(m == null ? 0 : 1, 0);
+    }
+
+    @EventHandler
+    public void onPlayerInteract(PlayerInteractEvent e) {
+        Minigame m = MinigameManager.getGame(e.getPlayer());
+        if(m != null) {
+            m.playerActed();
+            m.onPlayerInteract(e);
+        }
+        count(m == null ? 0 : 1, 0);
+    }
+
+    /*
+        Events about a place - routed to the games (and lobbies) there, plus the Player's own game
+     */
+
+    @EventHandler
+    public void onBlockBreak(BlockBreakEvent e) {
+        try {
+            collectGames(e.getPlayer(), e.getBlock());
+            for(int i = 0; i < gameTargets.size(); i++) {
+                gameTargets.get(i).onBlockBreak(e);
+            }
+            doorIndex.collect(e.getBlock().getX(), e.getBlock().getY(), e.getBlock().getZ(), lobbyTargets);
+            for(int i = 0; i < lobbyTargets.size(); i++) {
+                lobbyTargets.get(i).onBlockChange(e.getBlock());
+            }
+            count(gameTargets.size() + lobbyTargets.size(), 0);
+        } finally {
+            lobbyTargets.clear();
+            gameTargets.clear();
+        }
+    }
+
+    @EventHandler
+    public void onBlockPlace(BlockPlaceEvent e) {
+        try {
+            collectGames(e.getPlayer(), e.getBlock());
+            for(int i = 0; i < gameTargets.size(); i++) {
+                gameTargets.get(i).onBlockPlace(e);
+            }
+            doorIndex.collect(e.getBlock().getX(), e.getBlock().getY(), e.getBlock().getZ(), lobbyTargets);
+            for(int i = 0; i < lobbyTargets.size(); i++) {
+                lobbyTargets.get(i).onBlockChange(e.getBlock());
+            }
+            count(gameTargets.size() + lobbyTargets.size(), 0);
+        } finally {
+            lobbyTargets.clear();
+            gameTargets.clear();
+        }
+    }
+
+    //Once every plugin (protection included) has had its say, so games only record breaks that really happen
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockBroken(BlockBreakEvent e) {
+        try {
+            collectGames(e.getPlayer(), e.getBlock());
+            for(int i = 0; i < gameTargets.size(); i++) {
+                gameTargets.get(i).blockChanged(e.getBlock(), AIR);
+            }
+        } finally {
+            gameTargets.clear();
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onBlockPlaced(BlockPlaceEvent e) {
+        try {
+            collectGames(e.getPlayer(), e.getBlock());
+            if(gameTargets.isEmpty()) {return;}
+            BlockData placed = e.getBlockPlaced().getBlockData();
+            for(int i = 0; i < gameTargets.size(); i++) {
+                gameTargets.get(i).blockChanged(e.getBlock(), placed);
+            }
+        } finally {
+            gameTargets.clear();
+        }
+    }
+
+    @EventHandler
+    public void onPlayerMove(PlayerMoveEvent e) {
+        moves++;
+        Location from = e.getFrom();
+        Location to = e.getTo();
+        if(to == null || (from.getBlockX() == to.getBlockX() && from.getBlockY() == to.getBlockY() && from.getBlockZ() == to.getBlockZ())) {
+            count(0, lobbies.size());//Every handler ignores moves within a block
+            return;
+        }
+
+        Player p = e.getPlayer();
+        try {
+            lobbyIndex.collect(from.getBlockX(), from.getBlockY(), from.getBlockZ(), lobbyTargets);
+            lobbyIndex.collect(to.getBlockX(), to.getBlockY(), to.getBlockZ(), lobbyTargets);
+            String lobbyID = MinigameManager.getLobbyID(p);
+            MinigameLobby current = lobbyID == null ? null : lobbies.get(lobbyID);
+            if(current != null && !lobbyTargets.contains(current)) {lobbyTargets.add(current);}//May be leaving by teleport
+
+            gameIndex.collect(from.getBlockX(), from.getBlockY(), from.getBlockZ(), gameTargets);
+            gameIndex.collect(to.getBlockX(), to.getBlockY(), to.getBlockZ(), gameTargets);
+            Minigame game = MinigameManager.getGame(p);
+            if(game != null) {
+                game.playerActed();
+                if(!gameTargets.contains(game)) {gameTargets.add(game);}
+            }
+
+            for(int i = 0; i < lobbyTargets.size(); i++) {
+                lobbyTargets.get(i).onMove(e);
+            }
+            for(int i = 0; i < gameTargets.size(); i++) {
+                gameTargets.get(i).onPlayerMove(e);
+            }
+            count(gameTargets.size() + lobbyTargets.size(), lobbies.size());
+        } finally {
+            lobbyTargets.clear();
+            gameTargets.clear();
+        }
+    }
+
+    private void collectGames(Player p, Block b) {
+        gameIndex.collect(b.getX(), b.getY(), b.getZ(), gameTargets);
+        Minigame game = MinigameManager.getGame(p);
+        if(game != null && !gameTargets.contains(game)) {gameTargets.add(game);}
+    }
+
+    /**
+     * @param targets Callbacks made for this event
+     * @param otherListeners Listeners besides the running games that used to receive this event (lobbies)
+     */
+    private static void count(int targets, int otherListeners) {
+        events++;
+        dispatches += targets;
+        avoided += Math.max(0, gameIndex.size() + otherListeners - targets);
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        long total = dispatches + avoided;
+        stats.add("Event bus: "+events+" events ("+moves+" moves), "+dispatches+" callbacks, "+avoided+" avoided ("+
+                (total == 0 ? 0 : avoided * 100 / total)+"%)");
+        stats.add("Event bus: "+lobbies.size()+" lobbies, "+gameIndex.size()+" running games indexed");
+        return stats;
+    }
+}
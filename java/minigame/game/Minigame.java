@@ -1,58 +1,55 @@
 package minigame.game;
 
 import com.sk89q.worldedit.EditSession;
-import com.sk89q.worldedit.WorldEdit;
-import com.sk89q.worldedit.bukkit.BukkitAdapter;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
-import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
-import com.sk89q.worldedit.function.operation.Operation;
-import com.sk89q.worldedit.function.operation.Operations;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.transform.AffineTransform;
-import com.sk89q.worldedit.session.ClipboardHolder;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import minigame.Main;
+import minigame.io.InputOutputManager;
+import minigame.io.ReplayLog;
 import minigame.io.output.record.GameRecord;
 import minigame.player.PlayerManager;
-import minigame.util.AdjustedLocation;
+import minigame.util.BlockPos;
 import minigame.util.GlobalSettings;
 import minigame.util.MinigameTeam;
 import minigame.util.Misc;
+import minigame.util.WheelTask;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
-import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.EventPriority;
-import org.bukkit.event.HandlerList;
-import org.bukkit.event.Listener;
+import org.bukkit.entity.Projectile;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockPlaceEvent;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.PlayerDeathEvent;
+import org.bukkit.event.entity.ProjectileHitEvent;
+import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 import org.bukkit.scoreboard.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
-public abstract class Minigame implements Listener {
+public abstract class Minigame {
     private static int minigameCounter = 0;
 
     @Getter private final MinigameSettings settings;
@@ -65,20 +62,30 @@ public abstract class Minigame implements Listener {
     @Getter private final GameRecord gameRecord;
     @Getter private final ProtectedRegion gameArea;
 
-    @Getter private final Instant gameStart;
+    @Getter private Instant gameStart;//When the arena finished building and play could begin
     @Getter private final int startingPlayers;
     @Getter private int playersRemaining;
 
     private final HashMap<UUID, ItemStack[]> oldInventories = new HashMap<>();
-    private final Map<Location, String> setBlocks = new HashMap<>();//Maps pasted Block Locations to a given value
+    private final HashMap<UUID, MinigameTeam> playerTeams = new HashMap<>();//Index of teams, so membership checks don't scan them
+    private final ModelMap modelMap;//Maps pasted blocks to the model they belong to
+    private RegionSnapshot snapshot;//The arena as built, restored once we exit. Null for games without a main schematic
+    @Getter private final CompletableFuture<Void> built;//Completes once the arena is pasted and snapshotted
     private final EditSession editSession;
+    private final BlockChangeBuffer blockChanges;
+    @Getter(AccessLevel.PROTECTED) private final ReplayLog replay;
     private final HashMap<String, Clipboard> models;
     @Getter private final Location baseLoc; //The smallest x/y/z the game area is located at
-    private final int[] scale = {1, 1, 1}; //x/y/z multiplier on pasted models
-    private final ArrayList<BukkitTask> timers = new ArrayList<>();
+    private final int[] scale; //x/y/z multiplier on pasted models
+    private final ArrayList<WheelTask> timers = new ArrayList<>();
     private AffineTransform transform;
     private final Scoreboard scoreboard;
     private boolean gameOver = false;
+    private final int lifeLengthStat;
+    private final int deathsStat;
+    private final int killsStat;
+    private final long startNanos = System.nanoTime();
+    private boolean firstMoveRecorded = false;
 
     public Minigame(MinigameSettings settings, World world, String regionID, List<MinigameTeam> teams, Location exit) {
         this.settings = settings;
@@ -88,113 +95,149 @@ public abstract class Minigame implements Listener {
         this.exit = exit;
         this.minigameID = minigameCounter++;
         this.gameRecord = new GameRecord(this, this.teams);
-        this.gameArea = MinigameManager.getRegion(this.regionID);
+        this.lifeLengthStat = gameRecord.playerStat("life_length");
+        this.deathsStat = gameRecord.playerStat("deaths");
+        this.killsStat = gameRecord.playerStat("kills");
+
+        //Take the arena prepared for this region, or prepare one now if there isn't one ready
+        PreparedArena arena = MinigameManager.takeArena(settings, regionID);
+        this.built = arena.getBuilt();
+        this.gameArea = arena.getGameArea();
+        this.editSession = arena.getEditSession();
+        this.models = arena.getModels();
+        this.scale = arena.getScale();
+        this.scoreboard = arena.getScoreboard();
+        this.modelMap = new ModelMap(gameArea.getMinimumPoint(), gameArea.getMaximumPoint());
 
         System.out.println("Initializing minigame "+this.settings.name());
 
         //Find the minimum point to place all blocks on
-        BlockVector3 min = MinigameManager.getRegion(this.regionID).getMinimumPoint();
+        BlockVector3 min = gameArea.getMinimumPoint();
         this.baseLoc = new Location(this.world, min.getX(), min.getY(), min.getZ());
 
-        //Load Schematics
-        editSession = WorldEdit.getInstance().getEditSessionFactory().getEditSession(BukkitAdapter.adapt(this.world), -1);
-        models = new HashMap<>(this.settings.getSchemLength());
-        prepareSchematics();
+        //Everything from here on is logged, so the game can be replayed on the arena as it was built
+        String replayName = regionID+"-"+LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"))+"-"+minigameID;
+        this.replay = new ReplayLog(GlobalSettings.isReplaysRecorded() ? InputOutputManager.getReplayWriter() : null,
+                new File(GlobalSettings.getReplayDirectory(), replayName+".replay"), settings.name(), regionID, min);
+
+        blockChanges = new BlockChangeBuffer(editSession);
+        blockChanges.setReplay(replay);
+        blockChanges.hold();//Models must land on top of the arena, not under it
+        resetTransform();
+        built.whenComplete((v, e) -> {
+            if(e != null) {
+                if(!gameOver) {
+                    abort(new Exception("Failed to build the arena", e));
+                }
+                return;
+            }
+            gameStart = Instant.now();//Time spent waiting on the build doesn't count
+            snapshot = arena.getSnapshot();
+            blockChanges.setSnapshot(snapshot);
+            blockChanges.release();
+        });
 
         //Manage Players
-        scoreboard = Bukkit.getServer().getScoreboardManager().getNewScoreboard();
         setupScoreboard();
 
         int playerCount = 0;
         for(MinigameTeam team : this.teams) {
             for(Player p : team.getPlayers()) {
                 playerCount++;
+                playerTeams.put(p.getUniqueId(), team);
                 joinGame(p);
             }
         }
         this.startingPlayers = playerCount;
         this.playersRemaining = startingPlayers;
 
-        //Register this as an event listener
-        Bukkit.getServer().getPluginManager().registerEvents(this, Main.getInstance());
+        //Route events in our area to this game
+        if(!gameOver) {
+            GameEventBus.register(this);
+        }
 
-        this.gameStart = Instant.now();
+        if(gameStart == null) {//Until the arena is built
+            gameStart = Instant.now();
+        }
     }
 
-    /**
-     * Calculates the scale multiplier, loads all subclass schematics, and then loads, stores, and pastes the main schematic.
-     */
-    private void prepareSchematics() {
-        try {
-            //Load the additional models for individual game use later
-            ClipboardFormat format;
-            for(int i = 0; i < settings.getSchemLength(); i++) {
-                format = ClipboardFormats.findByFile(new File(settings.getSchemDir(i)));
-                try(ClipboardReader reader = format.getReader(new FileInputStream(settings.getSchemDir(i)))) {
-                    models.put(settings.getSchemName(i), reader.read());
-                }
-            }
-
-            if(!settings.hasMainSchem()) {return;}
+    //Called by GameEventBus whenever one of our Players moves or interacts, to time how long they waited to play
+    void playerActed() {
+        if(firstMoveRecorded || !built.isDone()) {return;}
+        firstMoveRecorded = true;
+        MinigameManager.recordFirstMove(System.nanoTime() - startNanos);
+    }
 
-            Clipboard clipboard;
-            format = ClipboardFormats.findByFile(new File(settings.getSchemDir(-1)));
-            try(ClipboardReader reader = format.getReader(new FileInputStream(settings.getSchemDir(-1)))) {
-                clipboard = reader.read();
+    //Runs the given code once the arena is ready, e.g. to teleport Players onto it. Skipped if the game ends first.
+    protected void whenBuilt(Runnable r) {
+        built.thenRun(() -> {
+            if(!gameOver) {
+                r.run();
             }
+        });
+    }
 
-            //Find out the maximum scale proportions for the main schematic in this region
-            BlockVector3 regionSize = MinigameManager.getRegion(regionID).getMaximumPoint()
-                                        .subtract(MinigameManager.getRegion(regionID).getMinimumPoint())
-                                        .add(BlockVector3.at(1, 1, 1));
-            BlockVector3 schemSize = clipboard.getDimensions();
-            int maxScale = 100; //Arbitrary max of 100x block multiplier
-            maxScale = Math.min(maxScale, settings.getScaleDirs()[0]? regionSize.getX() / schemSize.getX() : maxScale);
-            maxScale = Math.min(maxScale, settings.getScaleDirs()[1]? regionSize.getY() / schemSize.getY() : maxScale);
-            maxScale = Math.min(maxScale, settings.getScaleDirs()[2]? regionSize.getZ() / schemSize.getZ() : maxScale);
-            for(int i = 0; i < 3; i++) {
-                scale[i] = settings.getScaleDirs()[i] ? maxScale : 1;
-            }
-            resetTransform();
+    //Subclasses changing blocks directly (not through models) must call this once the block has changed, so the block is
+    //reset after the game and shows up in its replay
+    protected void markDirty(Block b) {
+        if(snapshot != null) {
+            snapshot.markDirty(b);
+        }
+        replay.block(b.getX(), b.getY(), b.getZ(), b.getBlockData());
+    }
 
-            //Paste the main model now
-            paste(clipboard, adj(0, 0, 0), null);
-        } catch(Exception e) {
-            abort(e);
+    //Called by GameEventBus at MONITOR once a Player breaking or placing a block has gone through (nothing cancelled it)
+    void blockChanged(Block b, BlockData now) {
+        if(!inGameArea(b)) {return;}
+        if(snapshot != null) {
+            snapshot.markDirty(b);
         }
+        replay.block(b.getX(), b.getY(), b.getZ(), now);
+    }
+
+    //Called by GameEventBus after one of our Players was hit, whether or not the game let it hurt them
+    void playerHit(EntityDamageByEntityEvent e) {
+        Entity attacker = e.getDamager();
+        if(attacker instanceof Projectile && ((Projectile) attacker).getShooter() instanceof Entity) {
+            attacker = (Entity) ((Projectile) attacker).getShooter();
+        }
+        replay.hit(attacker instanceof Player ? (Player) attacker : null, (Player) e.getEntity(), e.isCancelled() ? 0 : e.getFinalDamage());
+    }
+
+    //Logs a move of a turn-based game for its replay. p is null for the computer.
+    protected void logMove(@Nullable Player p, long move) {
+        replay.move(p, move);
     }
 
     /**
      * Pastes a loaded Clipboard at the given (BlockVector3) relative location from the base
      * @param clipboard Clipboard, most commonly obtained from clipboards.get
-     * @param adj Relative Location from the Base Location. E.g, (1, 0, 0) is one x unit to the "right"
+     * @param pos Packed world position to paste at, usually from adj(x, y, z)
      * @param contents Maps each block's coordinates to this Value for later processing onClick
      */
-    private void paste(@NonNull Clipboard clipboard, AdjustedLocation adj, @Nullable String contents) {
+    private void paste(@NonNull Clipboard clipboard, long pos, @Nullable String contents) {
         try {
-            ClipboardHolder holder = new ClipboardHolder(clipboard);
-            holder.setTransform(transform);
-            for(int x = 0; x < scale[0]; x++) {
-                for(int y = 0; y < scale[1]; y++) {
-                    for(int z = 0; z < scale[2]; z++) {
-                        Operation operation = holder
-                                .createPaste(editSession)
-                                .to(getVector(adj.add(x, y, z)))
-                                .ignoreAirBlocks(false)
-                                .build();
-                        Operations.complete(operation);
-                        if(contents != null) {setBlocks.put(adj.add(x, y, z), contents);}
+            //One paste of the pre-scaled model instead of one per cell, applied with the rest of this tick's changes
+            blockChanges.paste(SchematicCache.getScaled(clipboard, scale, transform), BlockPos.toVector(pos));
+            if(contents != null) {
+                int baseX = BlockPos.x(pos), baseY = BlockPos.y(pos), baseZ = BlockPos.z(pos);
+                for(int x = 0; x < scale[0]; x++) {
+                    for(int y = 0; y < scale[1]; y++) {
+                        for(int z = 0; z < scale[2]; z++) {
+                            modelMap.put(baseX+x, baseY+y, baseZ+z, contents);
+                        }
                     }
                 }
             }
-            editSession.flushSession();
         } catch(Exception e) {
             abort(e);
         }
     }
 
     protected void undo() {
+        blockChanges.flush();//Undo can only see changes that were applied
         editSession.undo(editSession);
+        editSession.flushSession();
     }
 
     public AffineTransform getTransform() {
@@ -212,9 +255,9 @@ public abstract class Minigame implements Listener {
      */
 
     protected void changeTeam(Player p, MinigameTeam dest) {
-        for(MinigameTeam team : teams) {
-            team.getPlayers().remove(p);
-        }
+        MinigameTeam old = playerTeams.put(p.getUniqueId(), dest);
+        if(old != null) {old.getPlayers().remove(p);}
+        dest.getPlayers().add(p);
         gameRecord.changeTeam(p, dest.getName());
     }
 
@@ -279,6 +322,7 @@ public abstract class Minigame implements Listener {
         }
         if(smallest != null) {
             smallest.getPlayers().add(p);
+            playerTeams.put(p.getUniqueId(), smallest);
             joinGame(p);
             return true;
         }
@@ -297,6 +341,7 @@ public abstract class Minigame implements Listener {
         for(MinigameTeam team : teams) {
             if(team.getName().equalsIgnoreCase(teamName) && team.getPlayers().size() < settings.getMaxTeamSize()) {
                 team.getPlayers().add(p);
+                playerTeams.put(p.getUniqueId(), team);
                 joinGame(p);
                 return true;
             }
@@ -308,8 +353,7 @@ public abstract class Minigame implements Listener {
      * Opens the scoreboard for all players
      */
     protected void setupScoreboard() {
-        Objective obj = scoreboard.registerNewObjective("general", "dummy", settings.getDisplayName());
-        obj.setDisplaySlot(DisplaySlot.SIDEBAR);
+        Objective obj = scoreboard.getObjective("general");//Registered by the PreparedArena
 
         for(MinigameTeam minigameTeam : teams) {
             Team team = scoreboard.registerNewTeam(minigameTeam.getName());
@@ -351,75 +395,70 @@ public abstract class Minigame implements Listener {
         return new Location(GlobalSettings.getMinigameWorld(), loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
 
-    /**
-     * Shortcut for the triple for loop needed to check all Blocks that have been scaled
-     * @param f Function to utilize
-     * @return Returns true if p returns true for any of the given coordinates
-     */
-    private String allBlocks(Function<int[], String> f) {
+    //TODO a better way to do both of these? Theoretically should be able to inverse the schematic, right?
+    //new BlockArrayClipboard(new CuboidRegion(getGameArea().getMinimumPoint(), getGameArea().getMaximumPoint()));
+    protected void removeModel(/*String modelID, */long pos) {
+        int baseX = BlockPos.x(pos), baseY = BlockPos.y(pos), baseZ = BlockPos.z(pos);
         for(int x = 0; x < scale[0]; x++) {
             for(int y = 0; y < scale[1]; y++) {
                 for(int z = 0; z < scale[2]; z++) {
-                    String result = f.apply(new int[] {x, y, z});
-                    if(result != null) {
-                        return result;
-                    }
+                    modelMap.remove(baseX+x, baseY+y, baseZ+z);
+                    blockChanges.setAir(BlockVector3.at(baseX+x, baseY+y, baseZ+z));
                 }
             }
         }
-        return null;
-    }
-
-    //TODO a better way to do both of these? Theoretically should be able to inverse the schematic, right?
-    //new BlockArrayClipboard(new CuboidRegion(getGameArea().getMinimumPoint(), getGameArea().getMaximumPoint()));
-    protected void removeModel(/*String modelID, */AdjustedLocation adj) {
-        allBlocks((i) -> {
-            Location toRemove = adj.add(i);
-            setBlocks.remove(toRemove);
-            toRemove.getBlock().setType(Material.AIR);
-            return null;
-        });
     }
 
-    protected String getModelAt(AdjustedLocation adj) {
-        return allBlocks((i) -> setBlocks.get(adj.add(i)));
+    //Checks every block of the scaled cell, since a model may not fill all of it
+    protected String getModelAt(long pos) {
+        int baseX = BlockPos.x(pos), baseY = BlockPos.y(pos), baseZ = BlockPos.z(pos);
+        for(int x = 0; x < scale[0]; x++) {
+            for(int y = 0; y < scale[1]; y++) {
+                for(int z = 0; z < scale[2]; z++) {
+                    String model = modelMap.get(baseX+x, baseY+y, baseZ+z);
+                    if(model != null) {
+                        return model;
+                    }
+                }
+            }
+        }
+        return null;
     }
 
     //TODO probably just make paste do this by default and rename it -- no added functionality I know of from this
-    protected void addModel(String model, AdjustedLocation adj) {
-        paste(models.get(model), adj, model);
+    protected void addModel(String model, long pos) {
+        paste(models.get(model), pos, model);
     }
 
-    protected void replaceModel(String model, AdjustedLocation adj) {
-        //removeModel(adj); //TODO currently unnecessary
-        addModel(model, adj);
+    protected void replaceModel(String model, long pos) {
+        //removeModel(pos); //TODO currently unnecessary
+        addModel(model, pos);
     }
 
-    protected boolean hasModelAt(AdjustedLocation adj) {
-        return getModelAt(adj) != null;
+    protected boolean hasModelAt(long pos) {
+        return getModelAt(pos) != null;
     }
 
-    protected boolean hasModelAt(@NotNull String modelID, AdjustedLocation adj) {
-        return modelID.equals(getModelAt(adj));
+    protected boolean hasModelAt(@NotNull String modelID, long pos) {
+        return modelID.equals(getModelAt(pos));
     }
 
-    //Allows subclasses to change real Locations given by the Listener to Relative coordinates that are easy to work with
-    protected int[] coords(Location loc) {
-        return new int[] {
-                (loc.getBlockX()-baseLoc.getBlockX())/scale[0],
-                (loc.getBlockY()-baseLoc.getBlockY())/scale[1],
-                (loc.getBlockZ()-baseLoc.getBlockZ())/scale[2]
-        };
+    //Allows subclasses to change real (packed) positions given by the Listener to Relative coordinates that are easy to work with
+    protected long coords(long pos) {
+        return BlockPos.pack(
+                (BlockPos.x(pos)-baseLoc.getBlockX())/scale[0],
+                (BlockPos.y(pos)-baseLoc.getBlockY())/scale[1],
+                (BlockPos.z(pos)-baseLoc.getBlockZ())/scale[2]
+        );
     }
+    protected long coords(Block b) {return coords(BlockPos.of(b));}
 
-    //Allows subclasses to correctly Adjust their relative Locations. Uses the Minigame's current world and adds the Minigame's base Location.
-    public AdjustedLocation adj(int x, int y, int z) {
-        return new AdjustedLocation(world, baseLoc, scale, x, y, z);
+    //Allows subclasses to correctly Adjust their relative coordinates into packed world positions by scaling them and adding the Minigame's base Location.
+    public long adj(int x, int y, int z) {
+        return BlockPos.pack(baseLoc.getBlockX()+(scale[0]*x), baseLoc.getBlockY()+(scale[1]*y), baseLoc.getBlockZ()+(scale[2]*z));
     }
-    public AdjustedLocation adj(Player p) {return new AdjustedLocation(p);}
-    public AdjustedLocation adj(Block b) {return new AdjustedLocation(b);}
-    public AdjustedLocation adj(int[] i) {return adj(i[0], i[1], i[2]);}
-    public AdjustedLocation adj(Location loc) {return new AdjustedLocation(loc);}
+    public long adj(Block b) {return BlockPos.of(b);}
+    public long adj(Location loc) {return BlockPos.of(loc);}
 
     /*
         Shortcut Convenience Methods for Subclasses
@@ -427,51 +466,48 @@ public abstract class Minigame implements Listener {
     public boolean inGameArea(Location loc) {
         return gameArea.contains(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());
     }
+    public boolean inGameArea(Block b) {
+        return gameArea.contains(b.getX(), b.getY(), b.getZ());
+    }
 
     /**
      * Loops through neighboring blocks to the given location and returns the direction to the first block within
      * the gameArea that it finds
-     * @param loc Location to search from
-     * @return Vector to add to the original Location
+     * @param pos Packed position to search from
+     * @return Packed position of the neighbor, or BlockPos.NONE
      */
-    protected Location getNeighbor(Location loc) {
-        Location toReturn;
+    protected long getNeighbor(long pos) {
+        long toReturn;
         for(int axis = 0; axis < 3; axis++) {
-            toReturn = getNeighbor(loc, axis);
-            if(toReturn != null) {return toReturn;}
+            toReturn = getNeighbor(pos, axis);
+            if(toReturn != BlockPos.NONE) {return toReturn;}
         }
-        return null;
+        return BlockPos.NONE;
     }
 
-    protected Location getNeighbor(Location loc, int axis) {
+    protected long getNeighbor(long pos, int axis) {
         int x, y, z;
         for (int adj = -1; adj <= 1; adj += 2) {
-            x = loc.getBlockX() + adj * (axis == 0 ? 1 : 0);
-            y = loc.getBlockY() + adj * (axis == 1 ? 1 : 0);
-            z = loc.getBlockZ() + adj * (axis == 2 ? 1 : 0);
+            x = BlockPos.x(pos) + adj * (axis == 0 ? 1 : 0);
+            y = BlockPos.y(pos) + adj * (axis == 1 ? 1 : 0);
+            z = BlockPos.z(pos) + adj * (axis == 2 ? 1 : 0);
             if (gameArea.contains(x, y, z)) {
-                return new Location(loc.getWorld(), x, y, z);
+                return BlockPos.pack(x, y, z);
             }
         }
-        return null;
+        return BlockPos.NONE;
     }
 
     protected boolean inGame(Player p) {
-        for(MinigameTeam team : teams) {
-            if(team.getPlayers().contains(p)) {return true;}
-        }
-        return false;
+        return playerTeams.containsKey(p.getUniqueId());
     }
 
     public String getName() {
         return settings.name();
     }
 
-    protected MinigameTeam getTeam(Player p) {
-        for(MinigameTeam team : teams) {
-            if(team.getPlayers().contains(p)) {return team;}
-        }
-        return null;
+    public MinigameTeam getTeam(Player p) {
+        return playerTeams.get(p.getUniqueId());
     }
 
     protected void messageAll(String msg) {
@@ -510,7 +546,7 @@ public abstract class Minigame implements Listener {
         Minigame Rounds (logging & timers)
      */
     protected void startTimer(int secondsDuration, int notifyFrequency, Function<Integer, String> getMessage, Function<Integer, List<MinigameTeam>> getRecipient) {
-        timers.add(new BukkitRunnable() {
+        timers.add(new WheelTask() {
             int remaining = secondsDuration;
 
             @Override
@@ -531,7 +567,7 @@ public abstract class Minigame implements Listener {
                     remaining--;
                 }
             }
-        }.runTaskTimer(Main.getInstance(), 0, 20));
+        }.runTaskTimer(0, 20));
     }
 
     protected void stopTimer(int idx) {
@@ -562,9 +598,8 @@ public abstract class Minigame implements Listener {
     public void kickPlayer(Player p) {
         playersRemaining--;
         awardLoserTickets(p);
-        for(MinigameTeam team : teams) {
-            team.getPlayers().remove(p);
-        }
+        MinigameTeam kickedFrom = playerTeams.remove(p.getUniqueId());
+        if(kickedFrom != null) {kickedFrom.getPlayers().remove(p);}
         leaveGame(p);
 
         //Check if this kick lead to insufficient players to play
@@ -594,9 +629,10 @@ public abstract class Minigame implements Listener {
             return;
         }
         gameOver = true;
+        blockChanges.flush();
 
-        for(BukkitTask task : timers) {
-            if(task != null && !task.isCancelled()) {
+        for(WheelTask task : timers) {
+            if(!task.isCancelled()) {
                 task.cancel();
             }
         }
@@ -609,7 +645,8 @@ public abstract class Minigame implements Listener {
             }
         }
 
-        HandlerList.unregisterAll(this);
+        GameEventBus.unregister(this);
+        replay.end(gameRecord.getWinningTeam());
         gameRecord.save();
         MinigameManager.endGame(this);
     }
@@ -635,32 +672,32 @@ public abstract class Minigame implements Listener {
         oldInventories.put(p.getUniqueId(), p.getInventory().getContents());
         p.getInventory().clear();
         playersRemaining++;
+        MinigameManager.joinGame(p, this);
+        replay.addPlayer(p, getTeam(p).getName());
     }
 
     /*
-        Event listening
+        Event listening - called by GameEventBus with events that concern this game, never registered with Bukkit
      */
 
-    @EventHandler
     public void onPlayerQuit(PlayerQuitEvent e) {
         if(inGame(e.getPlayer())) {
             kickPlayer(e.getPlayer());
         }
     }
 
-    @EventHandler
     public void onPlayerDeath(PlayerDeathEvent e) {
         if(!inGame(e.getEntity())) {return;}
         if(!settings.isDropOnDeath()) {e.getDrops().clear();}
         Player p = e.getEntity();
         if(!settings.isMultiDeathsAllowed()) {
-            gameRecord.set(p, "life_length", Duration.between(gameStart, Instant.now()));
+            gameRecord.set(p, lifeLengthStat, Duration.between(gameStart, Instant.now()));
         } else {
-            gameRecord.increment(p,"deaths", 1);
+            gameRecord.increment(p, deathsStat, 1);
         }
 
         if(p.getKiller() != null) {
-            gameRecord.increment(p.getKiller(), "kills", 1);
+            gameRecord.increment(p.getKiller(), killsStat, 1);
         }
 
         if(settings.isDeadPlayerKicked()) {
@@ -668,7 +705,7 @@ public abstract class Minigame implements Listener {
         }
     }
 
-    @EventHandler(priority = EventPriority.LOWEST)
+    //Runs at LOWEST priority, before onEntityDamageByEntity
     public void onPlayerDamage(EntityDamageEvent e) {
         if(settings.isDeathAllowed()) {return;}
         if(!(e.getEntity() instanceof Player)) {return;}
@@ -683,9 +720,9 @@ public abstract class Minigame implements Listener {
 
     /**
      * Restrict the game area per set in GameSettings. Teleport the player out if they somehow get stuck.
+     * Called by GameEventBus for moves into, out of or within this game's area, and for every move of its Players.
      * @param e PlayerMoveEvent
      */
-    @EventHandler
     public void onPlayerMove(PlayerMoveEvent e) {
         if(e.getTo() == null) {return;}
         if(e.getFrom().getBlock().equals(e.getTo().getBlock())) {return;}
@@ -700,17 +737,23 @@ public abstract class Minigame implements Listener {
         }
     }
 
-    @EventHandler
     public void onBlockBreak(BlockBreakEvent e) {
-        if(inGameArea(e.getBlock().getLocation()) && !inGame(e.getPlayer())) {
+        if(inGameArea(e.getBlock()) && !inGame(e.getPlayer())) {
             e.setCancelled(true);
         }
     }
 
-    @EventHandler
     public void onBlockPlace(BlockPlaceEvent e) {
-        if(inGameArea(e.getBlock().getLocation()) && !inGame(e.getPlayer())) {
+        if(inGameArea(e.getBlock()) && !inGame(e.getPlayer())) {
             e.setCancelled(true);
         }
     }
+
+    //Damage dealt to one of our Players by another entity
+    protected void onEntityDamageByEntity(EntityDamageByEntityEvent e) {/*Override*/}
+
+    //Projectile shot by one of our Players
+    protected void onProjectileHit(ProjectileHitEvent e) {/*Override*/}
+
+    protected void onPlayerInteract(PlayerInteractEvent e) {/*Override*/}
 }
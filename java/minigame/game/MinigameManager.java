@@ -11,6 +11,7 @@ import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import lombok.Getter;
 import lombok.var;
 import minigame.Main;
+import minigame.lobby.MatchQueue;
 import minigame.lobby.MinigameLobby;
 import minigame.lobby.MinigameLobbyGroup;
 import minigame.player.PlayerManager;
@@ -23,6 +24,8 @@ import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 public final class MinigameManager {
     //List of every created minigame region
@@ -34,6 +37,23 @@ public final class MinigameManager {
     //Set of the Minigame Region ID (unique) of the actively running Minigame instance
     private final static HashSet<String> activeGames = new HashSet<>();
 
+    //Maps each Minigame Region ID to the snapshot of its built arena, captured by the first game played there
+    private final static HashMap<String, RegionSnapshot> snapshots = new HashMap<>();
+
+    //Maps each idle Minigame Region ID to the arena prepared for its next match
+    private final static HashMap<String, PreparedArena> readyArenas = new HashMap<>();
+
+    //Arenas are prepared one after another, so several builds never share a tick's budget
+    private static CompletableFuture<Void> preparing = CompletableFuture.completedFuture(null);
+
+    //Metrics
+    private static long arenaHits = 0;
+    private static long arenaMisses = 0;
+    private static long firstMoves = 0;
+    private static long firstMoveNanosTotal = 0;
+    private static long lastFirstMoveNanos = 0;
+    private static long maxFirstMoveNanos = 0;
+
     //Set of Player UUIDs currently in an active minigame
     private final static HashMap<UUID, Minigame> playersInGame = new HashMap<>();
 
@@ -222,6 +242,9 @@ public final class MinigameManager {
 
     public static void kickPlayer(Player p) { playersInGame.remove(p.getUniqueId());}
 
+    //For Minigame use only - every Player the game takes in, whether at the start or late
+    static void joinGame(Player p, Minigame m) { playersInGame.put(p.getUniqueId(), m);}
+
     public static Minigame getGame(Player p) {return playersInGame.get(p.getUniqueId());}
 
     public static boolean inGame(Player p) {return playersInGame.get(p.getUniqueId()) != null;}
@@ -230,26 +253,115 @@ public final class MinigameManager {
 
     public static void startGame(MinigameSettings settings, List<MinigameTeam> teams, String regionID, Location gameExitCoords) {
         System.out.println("Starting game!");
-        Minigame m = (Minigame)settings.getConstructor().apply(GlobalSettings.getMinigameWorld(), regionID, teams, gameExitCoords);
-        activeGames.add(regionID);
-        for(MinigameTeam team : teams) {
-            for(Player p : team.getPlayers()) {
-                playersInGame.put(p.getUniqueId(), m);
-            }
-        }
+        activeGames.add(regionID);//Before constructing, so a game that aborts straight away still frees its region
+        settings.getConstructor().apply(GlobalSettings.getMinigameWorld(), regionID, teams, gameExitCoords);//Players join via Minigame.joinGame
     }
 
     public static void endGame(Minigame m) {
-        activeGames.remove(m.getRegionID());
         for(MinigameTeam team : m.getTeams()) {
             for(Player p : team.getPlayers()) {
                 playersInGame.remove(p.getUniqueId());
             }
         }
+
+        releaseRegion(m.getRegionID(), m.getBuilt());
+    }
+
+    //For ReplayViewer use only - keeps matches out of an idle region and hands over its arena, or null if it's busy
+    static PreparedArena reserveForReplay(String regionID) {
+        if(activeGames.contains(regionID)) {return null;}
+        activeGames.add(regionID);
+        return takeArena(getMinigameSettings(regionID), regionID);
+    }
+
+    //For ReplayViewer use only
+    static void endReplay(String regionID, CompletableFuture<Void> built) {
+        releaseRegion(regionID, built);
+    }
+
+    //The region stays busy until its arena has finished building, and is then put back to how it was built
+    private static void releaseRegion(String regionID, CompletableFuture<Void> built) {
+        built.whenComplete((v, e) -> {
+            RegionSnapshot snapshot = snapshots.get(regionID);
+            if(snapshot == null) {
+                regionAvailable(regionID);
+            } else {
+                snapshot.restore(GlobalSettings.getRestoreBlocksPerTick(), () -> regionAvailable(regionID));
+            }
+        });
+    }
+
+    private static void regionAvailable(String regionID) {
+        activeGames.remove(regionID);
+        prepareArena(regionID);
+        MatchQueue.regionAvailable(regionID, getMinigameSettings(regionID));
+    }
+
+    static RegionSnapshot getSnapshot(String regionID) {return snapshots.get(regionID);}
+
+    static void setSnapshot(String regionID, RegionSnapshot snapshot) {snapshots.put(regionID, snapshot);}
+
+    //Forgets the arenas of idle regions, so they are pasted (and snapshotted) again from the current schematics
+    public static void reloadArenas() {
+        snapshots.keySet().removeIf(regionID -> !activeGames.contains(regionID));
+        readyArenas.clear();
+        prepareArenas();
+    }
+
+    //Gets every idle region ready for its next match
+    public static void prepareArenas() {
+        for(String regionID : allMinigames) {
+            prepareArena(regionID);
+        }
+    }
+
+    //Queues the region's arena to be prepared, after any arenas already being prepared
+    private static void prepareArena(String regionID) {
+        preparing = preparing.handle((v, e) -> null).thenCompose(v -> {
+            if(activeGames.contains(regionID) || readyArenas.containsKey(regionID)) {
+                return CompletableFuture.completedFuture(null);
+            }
+            PreparedArena arena = new PreparedArena(getMinigameSettings(regionID), GlobalSettings.getMinigameWorld(), regionID);
+            readyArenas.put(regionID, arena);
+            return arena.getBuilt();
+        });
+    }
+
+    //Whether the region's next arena is built and waiting, so a match started there can begin straight away
+    public static boolean hasReadyArena(String regionID) {
+        PreparedArena arena = readyArenas.get(regionID);
+        return arena != null && arena.getBuilt().isDone() && !arena.getBuilt().isCompletedExceptionally();
+    }
+
+    //For Minigame use only - hands over the region's ready arena, or prepares one on the spot if there isn't one
+    static PreparedArena takeArena(MinigameSettings settings, String regionID) {
+        PreparedArena arena = readyArenas.remove(regionID);
+        if(arena == null || arena.getBuilt().isCompletedExceptionally()) {
+            arenaMisses++;
+            return new PreparedArena(settings, GlobalSettings.getMinigameWorld(), regionID);
+        }
+        arenaHits++;
+        return arena;
+    }
+
+    static void recordFirstMove(long nanos) {
+        firstMoves++;
+        firstMoveNanosTotal += nanos;
+        lastFirstMoveNanos = nanos;
+        maxFirstMoveNanos = Math.max(maxFirstMoveNanos, nanos);
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Arena pool: "+readyArenas.size()+" ready, "+arenaHits+" games started on a ready arena, "+arenaMisses+" prepared on the spot");
+        stats.add("Time to first move: last "+TimeUnit.NANOSECONDS.toMillis(lastFirstMoveNanos)+"ms, avg "+
+                (firstMoves == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(firstMoveNanosTotal / firstMoves))+"ms, max "+
+                TimeUnit.NANOSECONDS.toMillis(maxFirstMoveNanos)+"ms over "+firstMoves+" games");
+        return stats;
     }
 
     public static void killAllGames() {
-        for(Minigame m : playersInGame.values()) {
+        for(Minigame m : new HashSet<>(playersInGame.values())) {//exit() removes its Players from the map
             m.exit();
         }
     }
@@ -4,12 +4,17 @@ import io.vavr.Function4;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import minigame.game.ai.AIDifficulty;
 import minigame.game.child.*;
+import minigame.io.StatColumn;
+import minigame.io.StatSchema;
+import minigame.io.StatType;
 import minigame.util.GlobalSettings;
 import minigame.util.MinigameTeam;
 import org.bukkit.Location;
 import org.bukkit.World;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Getter
@@ -22,7 +27,9 @@ public enum MinigameSettings {
             "Welcome to Checkers! The match will start automatically when both teams have a player.",
             "Your Checkers match has started - good luck!",
             null, false, false, false, false,
-            false, false, false, false, false, false
+            false, false, false, false, false, false,
+            new StatColumn[] {StatColumn.round("move", StatType.TEXT, true), StatColumn.round("king", StatType.BOOLEAN, false)},
+            AIDifficulty.MEDIUM
     ),
     ARCHERY("Archery", Archery::new, 5, 50/*custom*/, 1, 1, 1, 1, -1, 3,
             null, new String[]{"target"},
@@ -30,7 +37,9 @@ public enum MinigameSettings {
             true, false, true, null,
             "20 arrows - 20 shots! Good luck!",
             "points", false, false, false, false,
-            false, false, false, false, false, false
+            false, false, false, false, false, false,
+            new StatColumn[] {StatColumn.player("points", StatType.INT, true)},
+            null
     ),
     BRIDGES("Bridge Battle", Bridges::new, 20, 80/*custom*/, 2, 8, 1, 1, 120, 3,
             "lava", new String[0],
@@ -39,7 +48,9 @@ public enum MinigameSettings {
             null,
             "Quick! Start building across!",
             null, false, true, true, true,
-            false, true, false, false, false, false
+            false, true, false, false, false, false,
+            new StatColumn[0],
+            null
     ),
     TAG("Tag", Tag::new, 10, -1/*custom*/, 2, 100, 1, 1, 15, 3,
             null, new String[0],
@@ -48,7 +59,9 @@ public enum MinigameSettings {
             null,
             null,
             "wins", false, false, false, true,
-            false, true, false, true, false, false
+            false, true, false, true, false, false,
+            new StatColumn[] {StatColumn.player("tagged", StatType.BIGINT, false)},
+            null
     ),
     CONNECT4("Connect4", Connect4::new, 10, 40, 2, 2, 1, 1, -1, 3,
             "connect4board", new String[] {"connect4_home", "connect4_away"},
@@ -57,7 +70,9 @@ public enum MinigameSettings {
             null,
             null,
             null, false, false, false, false,
-            false, true, false, false, false, false
+            false, true, false, false, false, false,
+            new StatColumn[0],
+            AIDifficulty.HARD
     ),
     SPLEEF("Spleef", Spleef::new, 10, -1, 2, 20, 1, 1, 15, 3,
             "snow", new String[0],
@@ -66,7 +81,9 @@ public enum MinigameSettings {
             null,
             null,
             null, false, false, false, true,
-            false, true, false, false, false, false
+            false, true, false, false, false, false,
+            new StatColumn[] {StatColumn.player("survive_duration", StatType.BIGINT, false)},
+            null
     ),
     GRAFFITI("Graffiti Wall", Graffiti::new, 0, 0, 1, 20, 1, 1, 0, 0,
             null, null,
@@ -75,7 +92,9 @@ public enum MinigameSettings {
             null,
             "Stand on a color to choose a brush color, swap projectiles to choose your brush size. Have fun!",
             "blocks_painted", false, false, false, true,
-            false, true, false, false, false, true
+            false, true, false, false, false, true,
+            new StatColumn[] {StatColumn.player("blocks_painted", StatType.INT, true)},
+            null
     );
 
     private final String displayName;//required
@@ -110,6 +129,9 @@ public enum MinigameSettings {
     private final boolean checkForOpenables;
     private final boolean dropOnDeath;
     private final boolean lateJoinAllowed;
+    @Getter(AccessLevel.NONE) private final StatColumn[] stats;//Stats logged by this Minigame only, see StatColumn.COMMON
+    private final AIDifficulty aiDifficulty;//Computer opponent a lone Player is matched against, null if this game has none
+    @Getter(AccessLevel.NONE) private final StatSchema[] statSchemas = new StatSchema[2];//Round & Player, built on first use
 
     public String getSchemName(int idx) {
         if(idx == -1) {return mainSchem;}
@@ -136,6 +158,31 @@ public enum MinigameSettings {
     }
 
 
+    /**
+     * @param player True for per-Player stats, false for per-round stats
+     * @return Every stat this Minigame may log, in column order
+     */
+    public List<StatColumn> getStatColumns(boolean player) {
+        List<StatColumn> columns = new ArrayList<>();
+        for(StatColumn stat : StatColumn.COMMON) {
+            if(stat.isPlayer() == player) {columns.add(stat);}
+        }
+        for(StatColumn stat : stats) {
+            if(stat.isPlayer() == player) {columns.add(stat);}
+        }
+        return columns;
+    }
+
+    /**
+     * @param player True for per-Player stats, false for per-round stats
+     * @return Slot layout used by this Minigame's GameRecords
+     */
+    public StatSchema getStatSchema(boolean player) {
+        int idx = player ? 1 : 0;
+        if(statSchemas[idx] == null) {statSchemas[idx] = new StatSchema(getStatColumns(player));}
+        return statSchemas[idx];
+    }
+
     public int getRequiredPlayers() {
         return minTeams * minTeamSize;
     }
@@ -0,0 +1,74 @@
+package minigame.game;
+
+import com.sk89q.worldedit.math.BlockVector3;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Records which model owns each block of a game area, as a flat grid of interned model IDs sized to the region.
+ * Lookups are a bounds check and an array read, so nothing is allocated while checking the board.
+ * Blocks outside the region are never owned.
+ */
+public class ModelMap {
+    private static final short NONE = 0;
+
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private short[] grid; //Allocated on first put, since most games never record any models
+    private final List<String> names = new ArrayList<>(); //ID -> model name, offset by one so that 0 is NONE
+    private final HashMap<String, Short> ids = new HashMap<>();
+
+    public ModelMap(BlockVector3 min, BlockVector3 max) {
+        this.minX = min.getX();
+        this.minY = min.getY();
+        this.minZ = min.getZ();
+        this.sizeX = max.getX() - minX + 1;
+        this.sizeY = max.getY() - minY + 1;
+        this.sizeZ = max.getZ() - minZ + 1;
+    }
+
+    //Index into the grid for the given world coordinates, or -1 if outside the region
+    private int index(int x, int y, int z) {
+        x -= minX;
+        y -= minY;
+        z -= minZ;
+        if(x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {return -1;}
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    public void put(int x, int y, int z, String model) {
+        int i = index(x, y, z);
+        if(i == -1) {return;}
+        if(grid == null) {
+            grid = new short[sizeX * sizeY * sizeZ];
+        }
+        grid[i] = intern(model);
+    }
+
+    public void remove(int x, int y, int z) {
+        int i = index(x, y, z);
+        if(i == -1 || grid == null) {return;}
+        grid[i] = NONE;
+    }
+
+    public String get(int x, int y, int z) {
+        int i = index(x, y, z);
+        if(i == -1 || grid == null || grid[i] == NONE) {return null;}
+        return names.get(grid[i] - 1);
+    }
+
+    private short intern(String model) {
+        Short id = ids.get(model);
+        if(id == null) {
+            if(names.size() >= Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct models in one game");
+            }
+            names.add(model);
+            id = (short) names.size();
+            ids.put(model, id);
+        }
+        return id;
+    }
+}
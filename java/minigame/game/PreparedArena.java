@@ -0,0 +1,111 @@
+package minigame.game;
+
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import lombok.Getter;
+import minigame.Main;
+import minigame.util.GlobalSettings;
+import minigame.util.Misc;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.scoreboard.DisplaySlot;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Scoreboard;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Everything a Minigame needs from its region before any Players arrive: models loaded, scale worked out, the arena
+ * built and snapshotted, and a fresh scoreboard. MinigameManager keeps one ready for every idle region, so starting a
+ * match only has to attach the teams.
+ */
+@Getter
+public class PreparedArena {
+    private final MinigameSettings settings;
+    private final World world;
+    private final String regionID;
+    private final ProtectedRegion gameArea;
+    private final EditSession editSession;
+    private final HashMap<String, Clipboard> models;
+    private final int[] scale = {1, 1, 1}; //x/y/z multiplier on pasted models
+    private final Scoreboard scoreboard;
+    private final CompletableFuture<Void> built = new CompletableFuture<>(); //Completes once the arena is pasted and snapshotted
+    private RegionSnapshot snapshot;
+
+    public PreparedArena(MinigameSettings settings, World world, String regionID) {
+        this.settings = settings;
+        this.world = world;
+        this.regionID = regionID;
+        this.gameArea = MinigameManager.getRegion(regionID);
+        this.editSession = WorldEdit.getInstance().getEditSessionFactory().getEditSession(BukkitAdapter.adapt(world), -1);
+        this.models = new HashMap<>(settings.getSchemLength());
+
+        scoreboard = Bukkit.getServer().getScoreboardManager().getNewScoreboard();
+        Objective obj = scoreboard.registerNewObjective("general", "dummy", settings.getDisplayName());
+        obj.setDisplaySlot(DisplaySlot.SIDEBAR);
+
+        prepareSchematics().thenRun(this::captureSnapshot).whenComplete((v, e) -> {
+            if(e == null) {
+                built.complete(null);
+            } else {
+                Main.getInstance().getLogger().severe("Failed to prepare the arena for "+regionID+": "+Misc.getError(e));
+                built.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * Calculates the scale multiplier, fetches all subclass schematics from the cache, and then starts building the main
+     * schematic over the next few ticks.
+     * @return Completes once the main schematic is fully pasted
+     */
+    private CompletableFuture<Void> prepareSchematics() {
+        try {
+            //Load the additional models for individual game use later
+            for(int i = 0; i < settings.getSchemLength(); i++) {
+                models.put(settings.getSchemName(i), SchematicCache.get(settings.getSchemDir(i)));
+            }
+
+            if(!settings.hasMainSchem()) {return CompletableFuture.completedFuture(null);}
+
+            Clipboard clipboard = SchematicCache.get(settings.getSchemDir(-1));
+
+            //Find out the maximum scale proportions for the main schematic in this region
+            BlockVector3 regionSize = gameArea.getMaximumPoint().subtract(gameArea.getMinimumPoint()).add(BlockVector3.at(1, 1, 1));
+            BlockVector3 schemSize = clipboard.getDimensions();
+            int maxScale = 100; //Arbitrary max of 100x block multiplier
+            maxScale = Math.min(maxScale, settings.getScaleDirs()[0]? regionSize.getX() / schemSize.getX() : maxScale);
+            maxScale = Math.min(maxScale, settings.getScaleDirs()[1]? regionSize.getY() / schemSize.getY() : maxScale);
+            maxScale = Math.min(maxScale, settings.getScaleDirs()[2]? regionSize.getZ() / schemSize.getZ() : maxScale);
+            for(int i = 0; i < 3; i++) {
+                scale[i] = settings.getScaleDirs()[i] ? maxScale : 1;
+            }
+
+            //Build the main model, unless a previous game already built it and it has been restored since
+            if(MinigameManager.getSnapshot(regionID) != null) {return CompletableFuture.completedFuture(null);}
+            AffineTransform transform = new AffineTransform().scale(scale[0], scale[1], scale[2]);
+            return ArenaBuilder.build(editSession, SchematicCache.getScaled(clipboard, scale, transform),
+                    gameArea.getMinimumPoint(), GlobalSettings.getArenaBuildMillisPerTick());
+        } catch(Exception e) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    //The first arena built in a region is snapshotted; every later one reuses that snapshot
+    private void captureSnapshot() {
+        if(!settings.hasMainSchem()) {return;}//Nothing of ours to restore, and what Players leave behind (e.g. Graffiti's wall) stays
+        snapshot = MinigameManager.getSnapshot(regionID);
+        if(snapshot == null) {
+            snapshot = RegionSnapshot.capture(world, gameArea);
+            MinigameManager.setSnapshot(regionID, snapshot);
+        }
+    }
+}
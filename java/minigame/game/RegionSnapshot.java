@@ -0,0 +1,175 @@
+package minigame.game;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+import minigame.Main;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Copy of a game area as it was built, stored as one palette index per block. Blocks changed during a game are
+ * marked dirty, and only those are put back afterwards, a limited number per tick so large arenas don't lag the server.
+ * Only block data is kept - the contents of chests, signs etc. are not restored.
+ */
+public class RegionSnapshot {
+    private final World world;
+    private final int minX, minY, minZ;
+    private final int sizeX, sizeY, sizeZ;
+    private final BlockData[] palette;
+    private final char[] blocks; //Palette index of each block, indexed like ModelMap
+    private final long[] dirty; //One bit per block
+    private int dirtyCount = 0;
+    private boolean restoring = false;
+
+    //Metrics, across every region
+    private static int snapshots = 0;
+    private static long snapshotBytes = 0;
+    private static long restores = 0;
+    private static long blocksChecked = 0;
+    private static long blocksRestored = 0;
+    private static int lastRestoreTicks = 0;
+
+    private RegionSnapshot(World world, BlockVector3 min, BlockVector3 max, BlockData[] palette, char[] blocks) {
+        this.world = world;
+        this.minX = min.getX();
+        this.minY = min.getY();
+        this.minZ = min.getZ();
+        this.sizeX = max.getX() - minX + 1;
+        this.sizeY = max.getY() - minY + 1;
+        this.sizeZ = max.getZ() - minZ + 1;
+        this.palette = palette;
+        this.blocks = blocks;
+        this.dirty = new long[(blocks.length + 63) >>> 6];
+        snapshots++;
+        snapshotBytes += blocks.length * 2L + dirty.length * 8L;
+    }
+
+    /**
+     * Copies every block in the region's bounding box, one chunk at a time
+     */
+    public static RegionSnapshot capture(World world, ProtectedRegion region) {
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        int sizeX = max.getX() - min.getX() + 1;
+        int sizeY = max.getY() - min.getY() + 1;
+        int sizeZ = max.getZ() - min.getZ() + 1;
+        char[] blocks = new char[sizeX * sizeY * sizeZ];
+        List<BlockData> palette = new ArrayList<>();
+        HashMap<BlockData, Integer> paletteIndex = new HashMap<>();
+
+        for(int cx = min.getX() >> 4; cx <= max.getX() >> 4; cx++) {
+            for(int cz = min.getZ() >> 4; cz <= max.getZ() >> 4; cz++) {
+                ChunkSnapshot chunk = world.getChunkAt(cx, cz).getChunkSnapshot(false, false, false);
+                int fromX = Math.max(min.getX(), cx << 4), toX = Math.min(max.getX(), (cx << 4) + 15);
+                int fromZ = Math.max(min.getZ(), cz << 4), toZ = Math.min(max.getZ(), (cz << 4) + 15);
+                for(int y = min.getY(); y <= max.getY(); y++) {
+                    for(int z = fromZ; z <= toZ; z++) {
+                        for(int x = fromX; x <= toX; x++) {
+                            BlockData data = chunk.getBlockData(x & 15, y, z & 15);
+                            Integer id = paletteIndex.get(data);
+                            if(id == null) {
+                                if(palette.size() >= Character.MAX_VALUE) {//Keeps every id well inside a char
+                                    throw new IllegalStateException("Region "+region.getId()+" has too many distinct blocks to snapshot");
+                                }
+                                id = palette.size();
+                                palette.add(data);
+                                paletteIndex.put(data, id);
+                            }
+                            blocks[((y - min.getY()) * sizeZ + (z - min.getZ())) * sizeX + (x - min.getX())] = (char) (int) id;
+                        }
+                    }
+                }
+            }
+        }
+        return new RegionSnapshot(world, min, max, palette.toArray(new BlockData[0]), blocks);
+    }
+
+    public void markDirty(int x, int y, int z) {
+        x -= minX;
+        y -= minY;
+        z -= minZ;
+        if(x < 0 || y < 0 || z < 0 || x >= sizeX || y >= sizeY || z >= sizeZ) {return;}
+        int i = (y * sizeZ + z) * sizeX + x;
+        if((dirty[i >>> 6] & (1L << i)) == 0) {
+            dirty[i >>> 6] |= 1L << i;
+            dirtyCount++;
+        }
+    }
+
+    public void markDirty(Block b) {
+        markDirty(b.getX(), b.getY(), b.getZ());
+    }
+
+    public boolean isRestoring() {
+        return restoring;
+    }
+
+    /**
+     * Puts every dirty block back as it was captured, spread over as many ticks as needed
+     * @param blocksPerTick Max dirty blocks checked each tick
+     * @param onComplete Run on the main thread once the region is fully restored
+     */
+    public void restore(int blocksPerTick, Runnable onComplete) {
+        restoring = true;
+        restores++;
+        new BukkitRunnable() {
+            private int word = 0;
+            private int ticks = 0;
+
+            @Override
+            public void run() {
+                ticks++;
+                int budget = blocksPerTick;
+                while(word < dirty.length && budget > 0) {
+                    long bits = dirty[word];
+                    while(bits != 0 && budget > 0) {
+                        int bit = Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                        restoreBlock((word << 6) + bit);
+                        budget--;
+                    }
+                    dirty[word] = bits;
+                    if(bits == 0) {word++;}
+                }
+                if(word < dirty.length) {return;}
+
+                dirtyCount = 0;
+                restoring = false;
+                lastRestoreTicks = ticks;
+                cancel();
+                onComplete.run();
+            }
+        }.runTaskTimer(Main.getInstance(), 1, 1);
+    }
+
+    private void restoreBlock(int i) {
+        int x = i % sizeX;
+        int z = (i / sizeX) % sizeZ;
+        int y = i / (sizeX * sizeZ);
+        Block b = world.getBlockAt(minX + x, minY + y, minZ + z);
+        BlockData original = palette[blocks[i]];
+        blocksChecked++;
+        if(!b.getBlockData().equals(original)) {
+            b.setBlockData(original, false);
+            blocksRestored++;
+        }
+    }
+
+    public int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Arena snapshots: "+snapshots+" ("+(snapshotBytes / 1024)+" KiB), "+restores+" restores");
+        stats.add("Arena restores: "+blocksRestored+"/"+blocksChecked+" dirty blocks changed back, last took "+lastRestoreTicks+" ticks");
+        return stats;
+    }
+}
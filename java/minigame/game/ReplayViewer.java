@@ -0,0 +1,227 @@
+package minigame.game;
+
+import com.sk89q.worldedit.bukkit.BukkitAdapter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import minigame.Main;
+import minigame.io.ReplayFile;
+import minigame.io.ReplayLog;
+import minigame.util.WheelTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Plays a ReplayFile back on an idle arena of its minigame. The region is kept out of matchmaking while the replay runs,
+ * every logged block change is re-applied on the tick it happened (scaled by the playback speed), and moves, tags and
+ * hits are told to the viewer. Once it finishes or is stopped, the arena is restored just like after a game.
+ */
+public final class ReplayViewer {
+    private static final double MAX_SPEED = 64;
+
+    //By the UUID of the Player watching
+    private static final HashMap<UUID, ReplayViewer> viewing = new HashMap<>();
+
+    private final Player viewer;
+    private final ReplayFile replay;
+    private final String regionID;
+    private final PreparedArena arena;
+    private final BaseBlock[] palette;
+    private final BlockVector3 origin;
+    private BlockChangeBuffer blockChanges;
+    private WheelTask task;
+    private double speed;
+    private double position = 0; //Replay tick reached
+    private int next = 0; //Next event to apply
+    private boolean stopped = false;
+
+    //Metrics
+    private static long replaysStarted = 0;
+    private static long eventsApplied = 0;
+
+    private ReplayViewer(Player viewer, ReplayFile replay, String regionID, PreparedArena arena, BaseBlock[] palette, double speed) {
+        this.viewer = viewer;
+        this.replay = replay;
+        this.regionID = regionID;
+        this.arena = arena;
+        this.palette = palette;
+        this.origin = arena.getGameArea().getMinimumPoint();
+        this.speed = speed;
+    }
+
+    /**
+     * Loads a replay off the main thread, then starts playing it
+     * @param regionID Region to play it in, or null for the region it was recorded in
+     */
+    public static void start(Player viewer, String name, @Nullable String regionID, double speed) {
+        if(viewing.containsKey(viewer.getUniqueId())) {
+            viewer.sendMessage("You are already watching a replay. Use /minigamereplay stop first.");
+            return;
+        }
+        File file = ReplayFile.find(name);
+        if(file == null) {
+            viewer.sendMessage("Replay "+name+" not found. Use /minigamereplay list to see recent replays.");
+            return;
+        }
+        viewer.sendMessage("Loading replay "+name+"...");
+        Bukkit.getScheduler().runTaskAsynchronously(Main.getInstance(), () -> {
+            try {
+                ReplayFile replay = ReplayFile.read(file);
+                Bukkit.getScheduler().runTask(Main.getInstance(), () -> begin(viewer, replay, regionID, speed));
+            } catch(IOException e) {
+                Main.getInstance().getLogger().warning("Failed to read replay "+file.getName()+": "+e.getMessage());
+                Bukkit.getScheduler().runTask(Main.getInstance(), () -> viewer.sendMessage("Replay "+name+" could not be read."));
+            }
+        });
+    }
+
+    private static void begin(Player viewer, ReplayFile replay, @Nullable String regionID, double speed) {
+        if(!viewer.isOnline() || viewing.containsKey(viewer.getUniqueId())) {return;}
+        String region = regionID == null ? replay.getRegionID() : regionID;
+        if(!MinigameManager.getAllMinigames().contains(region) ||
+                !MinigameManager.getMinigameSettings(region).name().equals(replay.getGameType())) {
+            viewer.sendMessage("This replay can only be played in a "+replay.getGameType()+" region.");
+            return;
+        }
+
+        BaseBlock[] palette = new BaseBlock[replay.getPalette().size()];
+        for(int i = 0; i < palette.length; i++) {
+            try {
+                palette[i] = BukkitAdapter.adapt(Bukkit.createBlockData(replay.getPalette().get(i))).toBaseBlock();
+            } catch(IllegalArgumentException e) {
+                viewer.sendMessage("This replay uses a block this server doesn't have: "+replay.getPalette().get(i));
+                return;
+            }
+        }
+
+        PreparedArena arena = MinigameManager.reserveForReplay(region);
+        if(arena == null) {
+            viewer.sendMessage("A game is being played there. Try again once it has ended.");
+            return;
+        }
+        ReplayViewer replayViewer = new ReplayViewer(viewer, replay, region, arena, palette, clampSpeed(speed));
+        viewing.put(viewer.getUniqueId(), replayViewer);
+        replaysStarted++;
+        arena.getBuilt().whenComplete((v, e) -> {
+            if(e != null) {
+                viewer.sendMessage("Sorry, the arena for this replay could not be built.");
+                replayViewer.stop();
+            } else if(!replayViewer.stopped) {
+                replayViewer.play();
+            }
+        });
+    }
+
+    private void play() {
+        blockChanges = new BlockChangeBuffer(arena.getEditSession());
+        blockChanges.setSnapshot(arena.getSnapshot());
+        try {
+            viewer.teleport(MinigameManager.getViewerLocation(regionID));
+        } catch(Exception e) {
+            //No viewing spot is set for this region
+        }
+        viewer.sendMessage("Replaying "+replay.getGameType()+" from "+
+                new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(replay.getStartMillis()))+" with "+
+                String.join(", ", replay.getPlayers())+" ("+time(replay.getLengthTicks())+") at "+speed+"x speed.");
+        viewer.sendMessage("Use /minigamereplay speed <speed> to change the speed (0 pauses), or /minigamereplay stop.");
+        task = new WheelTask() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }.runTaskTimer(1, 1);
+    }
+
+    //Applies every event up to the next replay tick
+    private void tick() {
+        if(!viewer.isOnline()) {
+            stop();
+            return;
+        }
+        position += speed;
+        List<ReplayFile.Event> events = replay.getEvents();
+        while(next < events.size() && events.get(next).getTick() <= position) {
+            apply(events.get(next++));
+            eventsApplied++;
+        }
+        if(next >= events.size()) {
+            viewer.sendMessage(replay.getWinningTeam() == null ? "Replay finished. The recording ended before the game did." :
+                    "Replay finished. Winner: "+replay.getWinningTeam());
+            stop();
+        }
+    }
+
+    private void apply(ReplayFile.Event e) {
+        switch(e.getType()) {
+            case ReplayLog.BLOCK:
+                if(e.getBlock() < palette.length) {
+                    blockChanges.set(origin.add(e.getX(), e.getY(), e.getZ()), palette[e.getBlock()]);
+                }
+                break;
+            case ReplayLog.MOVE:
+                viewer.sendMessage("["+time(e.getTick())+"] "+name(e.getActor())+" played move "+e.getValue());
+                break;
+            case ReplayLog.TAG:
+                viewer.sendMessage("["+time(e.getTick())+"] "+name(e.getTarget())+(e.getActor() == 0 ? " is it" :
+                        " was tagged by "+name(e.getActor())));
+                break;
+            case ReplayLog.HIT:
+                viewer.sendMessage("["+time(e.getTick())+"] "+name(e.getTarget())+" was hit by "+name(e.getActor())+
+                        (e.getValue() > 0 ? " for "+(e.getValue() / 10.0)+" damage" : ""));
+                break;
+        }
+    }
+
+    private String name(int player) {
+        return player == 0 ? "the computer" : replay.getPlayerName(player);
+    }
+
+    private static String time(long ticks) {
+        long seconds = ticks / 20;
+        return (seconds / 60)+":"+String.format("%02d", seconds % 60);
+    }
+
+    private static double clampSpeed(double speed) {
+        return Math.max(0, Math.min(MAX_SPEED, speed));
+    }
+
+    private void stop() {
+        if(stopped) {return;}
+        stopped = true;
+        if(task != null) {task.cancel();}
+        if(blockChanges != null) {blockChanges.flush();}
+        viewing.remove(viewer.getUniqueId());
+        MinigameManager.endReplay(regionID, arena.getBuilt());
+    }
+
+    //Returns false if the Player isn't watching a replay
+    public static boolean setSpeed(Player viewer, double speed) {
+        ReplayViewer replayViewer = viewing.get(viewer.getUniqueId());
+        if(replayViewer == null) {return false;}
+        replayViewer.speed = clampSpeed(speed);
+        return true;
+    }
+
+    //Returns false if the Player isn't watching a replay
+    public static boolean stop(Player viewer) {
+        ReplayViewer replayViewer = viewing.get(viewer.getUniqueId());
+        if(replayViewer == null) {return false;}
+        replayViewer.stop();
+        return true;
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Replay viewer: "+viewing.size()+" playing, "+replaysStarted+" started, "+eventsApplied+" events applied");
+        return stats;
+    }
+}
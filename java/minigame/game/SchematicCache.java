@@ -0,0 +1,190 @@
+package minigame.game;
+
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormat;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardFormats;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.transform.AffineTransform;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.session.ClipboardHolder;
+import minigame.Main;
+import minigame.util.GlobalSettings;
+import minigame.util.Misc;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide cache of parsed schematics, keyed by file path and checked against the file's modification time when
+ * (re)loaded. Everything is read once on startup, so starting a game never touches the disk or parses NBT.
+ * Also caches each model pre-scaled for every scale/transform it has been pasted with, so a scaled model is
+ * placed with one paste instead of one per cell.
+ * Cached Clipboards are shared by every running game and must never be modified - only pasted.
+ */
+public final class SchematicCache {
+    private static final Map<String, CachedSchematic> cache = new HashMap<>();
+
+    //Metrics
+    private static long hits = 0;
+    private static long misses = 0; //Not preloaded, or evicted under memory pressure
+    private static long loads = 0;
+    private static long scaledHits = 0;
+    private static long scaledBuilds = 0;
+
+    /**
+     * Reads every schematic used by a configured Minigame, or re-reads it if the file changed since it was cached
+     * @return The number of schematics read from disk
+     */
+    public static int preload() {
+        int loaded = 0;
+        for(MinigameSettings settings : MinigameSettings.values()) {
+            for(int i = settings.hasMainSchem() ? -1 : 0; i < settings.getSchemLength(); i++) {
+                String path = settings.getSchemDir(i);
+                CachedSchematic cached = cache.get(path);
+                if(cached != null && cached.modified == new File(path).lastModified() && cached.get() != null) {continue;}
+                try {
+                    load(path);
+                    loaded++;
+                } catch(IOException e) {
+                    Main.getInstance().getLogger().severe("Failed to load schematic "+path+": "+Misc.getError(e));
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * @param path Path of the schematic, as given by MinigameSettings.getSchemDir
+     * @return The parsed schematic. Shared - do not modify!
+     * @throws IOException If the schematic wasn't cached and could not be read
+     */
+    public static Clipboard get(String path) throws IOException {
+        CachedSchematic cached = cache.get(path);
+        Clipboard clipboard = cached == null ? null : cached.get();
+        if(clipboard != null) {
+            hits++;
+            return clipboard;
+        }
+        misses++;
+        return load(path);
+    }
+
+    private static Clipboard load(String path) throws IOException {
+        File file = new File(path);
+        long modified = file.lastModified();
+        ClipboardFormat format = ClipboardFormats.findByFile(file);
+        if(format == null) {throw new IOException("Unknown schematic format: "+path);}
+        Clipboard clipboard;
+        try(ClipboardReader reader = format.getReader(new FileInputStream(file))) {
+            clipboard = reader.read();
+        }
+        cache.put(path, new CachedSchematic(modified, clipboard));//Drops the old entry's scaled copies with it
+        loads++;
+        return clipboard;
+    }
+
+    /**
+     * @param source Schematic, as returned by get
+     * @param scale x/y/z multiplier; every block of source becomes a scale[0] x scale[1] x scale[2] cell
+     * @param transform Transform to paste source with (normally a scale by the same multipliers, maybe rotated)
+     * @return A copy of source with the transform and cell expansion already applied, with its origin at 0,0,0 so
+     *         that pasting it untransformed at a position matches pasting source with the transform at that position
+     */
+    public static Clipboard getScaled(Clipboard source, int[] scale, AffineTransform transform) throws WorldEditException {
+        CachedSchematic cached = find(source);
+        String key = scale[0]+","+scale[1]+","+scale[2]+Arrays.toString(transform.coefficients());
+        Clipboard clipboard = cached == null ? null : cached.scaled.get(key);
+        if(clipboard != null) {
+            scaledHits++;
+            return clipboard;
+        }
+        clipboard = buildScaled(source, scale, transform);
+        if(cached != null) {cached.scaled.put(key, clipboard);}//Else source was reloaded since, so don't keep its copies
+        scaledBuilds++;
+        return clipboard;
+    }
+
+    //The entry currently caching source, or null if it has been reloaded or evicted. Only a handful of schematics are cached.
+    private static CachedSchematic find(Clipboard source) {
+        for(CachedSchematic cached : cache.values()) {
+            Clipboard clipboard = cached.get();
+            if(clipboard == null) {
+                cached.scaled.clear();//Evicted, so its copies go too
+            } else if(clipboard == source) {
+                return cached;
+            }
+        }
+        return null;
+    }
+
+    private static Clipboard buildScaled(Clipboard source, int[] scale, AffineTransform transform) throws WorldEditException {
+        //Transformed bounds of the source, relative to its origin (affine, so the corners are the extremes)
+        Region region = source.getRegion();
+        BlockVector3 from = region.getMinimumPoint(), to = region.getMaximumPoint();
+        BlockVector3 min = null, max = null;
+        for(int corner = 0; corner < 8; corner++) {
+            BlockVector3 point = BlockVector3.at(
+                    (corner & 1) == 0 ? from.getX() : to.getX(),
+                    (corner & 2) == 0 ? from.getY() : to.getY(),
+                    (corner & 4) == 0 ? from.getZ() : to.getZ());
+            BlockVector3 moved = transform.apply(point.subtract(source.getOrigin()).toVector3()).toBlockPoint();
+            min = min == null ? moved : min.getMinimum(moved);
+            max = max == null ? moved : max.getMaximum(moved);
+        }
+
+        BlockArrayClipboard target = new BlockArrayClipboard(new CuboidRegion(min, max.add(scale[0]-1, scale[1]-1, scale[2]-1)));
+        target.setOrigin(BlockVector3.ZERO);
+        ClipboardHolder holder = new ClipboardHolder(source);
+        holder.setTransform(transform);
+        for(int x = 0; x < scale[0]; x++) {
+            for(int y = 0; y < scale[1]; y++) {
+                for(int z = 0; z < scale[2]; z++) {
+                    Operations.complete(holder.createPaste(target).to(BlockVector3.at(x, y, z)).ignoreAirBlocks(false).build());
+                }
+            }
+        }
+        return target;
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Schematics: "+cache.size()+" cached"+(GlobalSettings.isSchematicCacheSoft() ? " (soft)" : "")+", "+
+                hits+" hits, "+misses+" misses, "+loads+" loads from disk");
+        stats.add("Scaled models: "+scaledBuilds+" built, "+scaledHits+" reused");
+        return stats;
+    }
+
+    private static class CachedSchematic {
+        private final long modified;
+        private final Clipboard clipboard; //Null if soft
+        private final SoftReference<Clipboard> soft;
+        private final Map<String, Clipboard> scaled = new HashMap<>(); //Scale & transform -> pre-scaled copy
+
+        private CachedSchematic(long modified, Clipboard clipboard) {
+            this.modified = modified;
+            if(GlobalSettings.isSchematicCacheSoft()) {
+                this.clipboard = null;
+                this.soft = new SoftReference<>(clipboard);
+            } else {
+                this.clipboard = clipboard;
+                this.soft = null;
+            }
+        }
+
+        private Clipboard get() {
+            return soft == null ? clipboard : soft.get();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package minigame.game.ai;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum AIDifficulty {
+    EASY(2, 150, 0.25),
+    MEDIUM(5, 400, 0.05),
+    HARD(64, 1500, 0);
+
+    private final int maxDepth; //Plies searched at most
+    private final int thinkMillis; //Time the search may take per move
+    private final double blunderChance; //Chance of playing a random legal move instead
+}
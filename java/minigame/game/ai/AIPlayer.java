@@ -0,0 +1,129 @@
+package minigame.game.ai;
+
+import minigame.Main;
+import minigame.util.Misc;
+import org.bukkit.Bukkit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * A computer opponent. It searches a copy of the game's position on a shared worker thread, so thinking never holds up
+ * a tick, and hands its move back to the game on the main thread.
+ */
+public final class AIPlayer {
+    private static final int TABLE_BITS = 18;
+    private static ExecutorService worker;
+    private static Negamax search; //Only used on the worker thread, one search at a time
+
+    //Metrics, kept on the main thread
+    private static long moves = 0;
+    private static long blunders = 0;
+    private static long nodes = 0;
+    private static long depthTotal = 0;
+    private static long thinkNanosTotal = 0;
+    private static long thinkNanosMax = 0;
+    private static long waitNanosTotal = 0; //Queued behind other games' searches
+
+    private final AIDifficulty difficulty;
+    private boolean cancelled = false;
+    private int requests = 0; //Only the answer to the latest request is used
+
+    public AIPlayer(AIDifficulty difficulty) {
+        this.difficulty = difficulty;
+    }
+
+    public static void enable() {
+        search = new Negamax(TABLE_BITS);
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "Minigame-AI");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static void disable() {
+        if(worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * Chooses a move for the side to move
+     * @param position A copy of the game's position, handed over to the worker thread
+     * @param onMove Given the chosen move on the main thread, or Negamax.NO_MOVE if there is none. Not called once cancelled.
+     */
+    public void chooseMove(SearchState position, LongConsumer onMove) {
+        if(cancelled) {return;}
+        int request = ++requests;
+        long queued = System.nanoTime();
+        worker.execute(() -> {
+            long start = System.nanoTime();
+            long move = Negamax.NO_MOVE;
+            int depth = 0;
+            long searched = 0;
+            boolean blunder = false;
+            try {
+                if(ThreadLocalRandom.current().nextDouble() < difficulty.getBlunderChance()) {
+                    long[] legal = new long[position.maxMoves()];
+                    int count = position.outcome() == SearchState.Outcome.ONGOING ? position.generateMoves(legal) : 0;
+                    if(count > 0) {
+                        move = legal[ThreadLocalRandom.current().nextInt(count)];
+                        blunder = true;
+                    }
+                }
+                if(!blunder) {
+                    Negamax.Result result = search.search(position, difficulty.getMaxDepth(),
+                            TimeUnit.MILLISECONDS.toNanos(difficulty.getThinkMillis()));
+                    move = result.getMove();
+                    depth = result.getDepth();
+                    searched = result.getNodes();
+                }
+            } catch(Exception e) {
+                Main.getInstance().getLogger().severe("AI search failed: "+Misc.getError(e));
+            }
+
+            long finished = System.nanoTime();
+            long chosen = move;
+            int reached = depth;
+            long nodeCount = searched;
+            boolean random = blunder;
+            if(!Main.getInstance().isEnabled()) {return;}
+            Bukkit.getScheduler().runTask(Main.getInstance(), () -> {
+                if(cancelled || request != requests) {return;}
+                record(finished - start, start - queued, reached, nodeCount, random);
+                onMove.accept(chosen);
+            });
+        });
+    }
+
+    //Drops any move still being thought about, and all later requests
+    public void cancel() {
+        cancelled = true;
+    }
+
+    private static void record(long thinkNanos, long waitNanos, int depth, long searched, boolean blunder) {
+        moves++;
+        if(blunder) {blunders++;}
+        nodes += searched;
+        depthTotal += depth;
+        thinkNanosTotal += thinkNanos;
+        thinkNanosMax = Math.max(thinkNanosMax, thinkNanos);
+        waitNanosTotal += waitNanos;
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("AI: "+moves+" moves ("+blunders+" deliberately random), avg depth "+(moves == 0 ? 0 : depthTotal / moves)+
+                ", "+nodes+" nodes");
+        stats.add("AI: avg think "+(moves == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(thinkNanosTotal / moves))+"ms, max "+
+                TimeUnit.NANOSECONDS.toMillis(thinkNanosMax)+"ms, avg queue wait "+
+                (moves == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanosTotal / moves))+"ms");
+        return stats;
+    }
+}
@@ -0,0 +1,182 @@
+package minigame.game.ai;
+
+import lombok.Value;
+
+/**
+ * Negamax search with alpha-beta pruning, iterative deepening and a transposition table, for any SearchState.
+ * Each instance keeps its own table and move lists, so an instance runs one search at a time.
+ */
+public final class Negamax {
+    public static final int WIN = 1_000_000; //Score of a won position, less the plies it takes; faster wins score higher
+    public static final long NO_MOVE = Long.MIN_VALUE;
+    private static final int MAX_PLY = 128;
+    private static final int INFINITY = WIN + 1;
+    private static final byte EXACT = 0, LOWER = 1, UPPER = 2;
+
+    //Transposition table, always replacing
+    private final int tableMask;
+    private final long[] keys;
+    private final int[] scores;
+    private final byte[] depths;
+    private final byte[] flags;
+    private final long[] bestMoves;
+
+    private final long[][] moveLists = new long[MAX_PLY][]; //Per ply, reused
+    private long deadline;
+    private long nodes;
+    private boolean stopped;
+
+    /**
+     * @param tableBits The transposition table holds 2^tableBits positions
+     */
+    public Negamax(int tableBits) {
+        int size = 1 << tableBits;
+        tableMask = size - 1;
+        keys = new long[size];
+        scores = new int[size];
+        depths = new byte[size];
+        flags = new byte[size];
+        bestMoves = new long[size];
+    }
+
+    /**
+     * Searches one ply deeper at a time until maxDepth, a forced result or the time budget is reached
+     * @return The best move of the deepest search that finished, or of the first search if none did
+     */
+    public Result search(SearchState state, int maxDepth, long budgetNanos) {
+        deadline = System.nanoTime() + budgetNanos;
+        nodes = 0;
+        stopped = false;
+        for(int i = 0; i < moveLists.length; i++) {
+            if(moveLists[i] == null || moveLists[i].length < state.maxMoves()) {moveLists[i] = new long[state.maxMoves()];}
+        }
+
+        long[] root = moveLists[0];
+        int count = state.outcome() == SearchState.Outcome.ONGOING ? state.generateMoves(root) : 0;
+        if(count == 0) {return new Result(NO_MOVE, 0, 0, 0);}
+
+        long best = root[0];
+        int bestScore = 0;
+        int reached = 0;
+        for(int depth = 1; depth <= Math.min(maxDepth, MAX_PLY - 1); depth++) {
+            //Last iteration's best move first, so a cut-off search still has it
+            for(int i = 1; i < count; i++) {
+                if(root[i] == best) {
+                    root[i] = root[0];
+                    root[0] = best;
+                    break;
+                }
+            }
+
+            int alpha = -INFINITY;
+            long depthBest = NO_MOVE;
+            for(int i = 0; i < count; i++) {
+                state.play(root[i]);
+                int score = -negamax(state, depth - 1, -INFINITY, -alpha, 1);
+                state.undo();
+                if(stopped) {break;}
+                if(score > alpha) {
+                    alpha = score;
+                    depthBest = root[i];
+                }
+            }
+            if(stopped) {
+                if(reached == 0 && depthBest != NO_MOVE) {//Something is better than nothing
+                    best = depthBest;
+                    bestScore = alpha;
+                }
+                break;
+            }
+            best = depthBest;
+            bestScore = alpha;
+            reached = depth;
+            if(Math.abs(bestScore) >= WIN - MAX_PLY) {break;}//Forced win or loss, deeper won't change it
+        }
+        return new Result(best, bestScore, reached, nodes);
+    }
+
+    private int negamax(SearchState state, int depth, int alpha, int beta, int ply) {
+        nodes++;
+        if((nodes & 1023) == 0 && System.nanoTime() > deadline) {
+            stopped = true;
+            return 0;
+        }
+
+        SearchState.Outcome outcome = state.outcome();
+        if(outcome == SearchState.Outcome.LOSS) {return -(WIN - ply);}
+        if(outcome == SearchState.Outcome.DRAW) {return 0;}
+        if(depth <= 0 || ply >= MAX_PLY - 1) {return state.evaluate();}
+
+        int alphaOrig = alpha;
+        long key = state.key();
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & tableMask;
+        long ttMove = NO_MOVE;
+        if(keys[slot] == key) {
+            ttMove = bestMoves[slot];
+            if(depths[slot] >= depth) {
+                int score = fromTable(scores[slot], ply);
+                if(flags[slot] == EXACT) {return score;}
+                if(flags[slot] == LOWER) {alpha = Math.max(alpha, score);}
+                else {beta = Math.min(beta, score);}
+                if(alpha >= beta) {return score;}
+            }
+        }
+
+        long[] moves = moveLists[ply];
+        int count = state.generateMoves(moves);
+        if(count == 0) {return -(WIN - ply);}
+        if(ttMove != NO_MOVE) {
+            for(int i = 1; i < count; i++) {
+                if(moves[i] == ttMove) {
+                    moves[i] = moves[0];
+                    moves[0] = ttMove;
+                    break;
+                }
+            }
+        }
+
+        int best = -INFINITY;
+        long bestMove = moves[0];
+        for(int i = 0; i < count; i++) {
+            long move = moves[i];//Deeper plies don't touch this ply's list, but read it before recursing anyway
+            state.play(move);
+            int score = -negamax(state, depth - 1, -beta, -alpha, ply + 1);
+            state.undo();
+            if(stopped) {return 0;}
+            if(score > best) {
+                best = score;
+                bestMove = move;
+            }
+            if(best > alpha) {alpha = best;}
+            if(alpha >= beta) {break;}
+        }
+
+        keys[slot] = key;
+        scores[slot] = toTable(best, ply);
+        depths[slot] = (byte) Math.min(depth, Byte.MAX_VALUE);
+        flags[slot] = best <= alphaOrig ? UPPER : best >= beta ? LOWER : EXACT;
+        bestMoves[slot] = bestMove;
+        return best;
+    }
+
+    //Win/loss scores are stored relative to the position rather than the root, so they stay right wherever it's found
+    private static int toTable(int score, int ply) {
+        if(score >= WIN - MAX_PLY) {return score + ply;}
+        if(score <= -(WIN - MAX_PLY)) {return score - ply;}
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if(score >= WIN - MAX_PLY) {return score - ply;}
+        if(score <= -(WIN - MAX_PLY)) {return score + ply;}
+        return score;
+    }
+
+    @Value
+    public static class Result {
+        long move; //NO_MOVE if there are no legal moves
+        int score;
+        int depth; //Deepest search that finished
+        long nodes;
+    }
+}
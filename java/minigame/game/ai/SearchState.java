@@ -0,0 +1,32 @@
+package minigame.game.ai;
+
+/**
+ * A two-player, turn-based position that Negamax can search. Moves are encoded as longs by the implementation, and
+ * play/undo work on the position in place so a search doesn't allocate a new position per node.
+ */
+public interface SearchState {
+    enum Outcome {ONGOING, LOSS, DRAW} //For the side to move
+
+    //Most legal moves any position can have
+    int maxMoves();
+
+    /**
+     * Fills out with every legal move for the side to move, best guesses first
+     * @return The number of moves
+     */
+    int generateMoves(long[] out);
+
+    void play(long move);
+
+    //Takes back the last move played
+    void undo();
+
+    //Whether the game ended with the last move. Positions with no legal moves are lost by the side to move.
+    Outcome outcome();
+
+    //Heuristic score for the side to move; positive is good. Must stay well below Negamax.WIN.
+    int evaluate();
+
+    //Hash of the position, including the side to move
+    long key();
+}
@@ -11,7 +11,6 @@ import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.entity.Arrow;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
 import org.bukkit.event.entity.ProjectileHitEvent;
 import org.bukkit.inventory.ItemStack;
 
@@ -23,6 +22,7 @@ public class Archery extends Minigame {
     private int currentTarget = 0;
     private Direction targetDir;
     private final int TARGET_DURATION = 5;
+    private final int POINTS_STAT = getGameRecord().playerStat("points");
     //private Location targetLocation;
 
     public Archery(World world, String region, List<MinigameTeam> teams, Location exit) {
@@ -38,7 +38,7 @@ public class Archery extends Minigame {
         if(currentTarget++ != 0) {
             undo();
         }
-        getGameRecord().increment(getPlayer(), "points", 0);
+        getGameRecord().increment(getPlayer(), POINTS_STAT, 0);
         getGameRecord().nextRound();
         targetDir = Direction.random();
         resetTransform();
@@ -63,7 +63,7 @@ public class Archery extends Minigame {
         return null;
     }
 
-    @EventHandler
+    @Override
     protected void onProjectileHit(ProjectileHitEvent e) {
         if(!(e.getEntity() instanceof Arrow)) {return;}
         if(!(e.getEntity().getShooter() instanceof Player)) {return;}
@@ -82,7 +82,7 @@ public class Archery extends Minigame {
         }
 
         totalPoints += points;
-        getGameRecord().increment(p, "points", points);
+        getGameRecord().increment(p, POINTS_STAT, points);
     }
 
     @Override
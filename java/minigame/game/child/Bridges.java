@@ -3,27 +3,24 @@ package minigame.game.child;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
-import minigame.Main;
 import minigame.game.Minigame;
 import minigame.game.MinigameSettings;
 import minigame.player.PlayerManager;
 import minigame.util.GlobalSettings;
 import minigame.util.MinigameTeam;
+import minigame.util.WheelTask;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.entity.PlayerDeathEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class Bridges extends Minigame implements Listener {
+public class Bridges extends Minigame {
     private final Location[] spawnPoints;
     private Region endZone;
     private int deadPlayerCount = 0;
@@ -50,12 +47,18 @@ public class Bridges extends Minigame implements Listener {
                 for(int j = 1; j < 9; j++) {
                     p.getInventory().setItem(j, new ItemStack(Material.valueOf(GlobalSettings.getColor(i) + "_WOOL"), 64));
                 }
-                p.teleport(spawnPoints[i]);
             }
         }
+        whenBuilt(() -> {
+            for(int i = 0; i < getTeams().size(); i++) {
+                for(Player p : getTeams().get(i).getPlayers()) {
+                    p.teleport(spawnPoints[i]);
+                }
+            }
+        });
     }
 
-    @Override @EventHandler
+    @Override
     public void onPlayerMove(PlayerMoveEvent e) {
         if(e.getTo() == null) {return;}
         super.onPlayerMove(e);
@@ -68,12 +71,12 @@ public class Bridges extends Minigame implements Listener {
                 getGameRecord().setGameWinner(team);
                 if(!checkGameOver()) {
                     messageAll(e.getPlayer().getDisplayName()+" has won first place! Game will end automatically in 10 seconds.");
-                    new BukkitRunnable() {
+                    new WheelTask() {
                         @Override
                         public void run() {
                             if(!gameEnded) {exit();}
                         }
-                    }.runTaskLater(Main.getInstance(), 20 * 10);
+                    }.runTaskLater(20 * 10);
                 }
             } else {
                 checkGameOver();
@@ -81,7 +84,7 @@ public class Bridges extends Minigame implements Listener {
         }
     }
 
-    @Override @EventHandler
+    @Override
     public void onPlayerDeath(PlayerDeathEvent e) {
         super.onPlayerDeath(e);
         checkGameOver();
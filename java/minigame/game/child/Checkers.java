@@ -1,200 +1,121 @@
 package minigame.game.child;
 
-import lombok.AllArgsConstructor;
-import lombok.Getter;
 import minigame.game.MinigameSettings;
+import minigame.game.ai.SearchState;
+import minigame.util.BlockPos;
 import minigame.util.MinigameTeam;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerInteractEvent;
 
-import java.util.Arrays;
 import java.util.List;
 
-public final class Checkers extends TwoPlayerMinigame implements Listener {
-    private int[] selPiece = null;
-    private boolean selKing = false;
+public final class Checkers extends TwoPlayerMinigame {
+    private final CheckersBoard board = new CheckersBoard();
+    private int selected = -1; //Selected piece's square, or -1 if none is selected
     private boolean doubleJumping = false;
-    private int homePieceCount;
-    private int awayPieceCount;
-    private final Piece[][] board = new Piece[8][8];
+    private final int MOVE_STAT = getGameRecord().roundStat("move");
+    private final int KING_STAT = getGameRecord().roundStat("king");
 
     public Checkers(World world, String region, List<MinigameTeam> teams, Location exit) {
         super(MinigameSettings.CHECKERS, world, region, teams, exit);
-        for (Piece[] pieces : board) {
-            Arrays.fill(pieces, Piece.EMPTY);
-        }
-
-        for(int x = 0; x < board.length; x++) {
-            for (int z = 0; z < board[x].length; z++) {
-                if (x % 2 != z % 2) {
-                    continue;
-                }
-
-                if (z < 3) {
-                    setPiece(new int[]{x, z}, Piece.HOME);
-                } else if (z > 4) {
-                    setPiece(new int[]{x, z}, Piece.AWAY);
-                } else {
-                    setPiece(new int[]{x, z}, Piece.EMPTY);
-                }
-            }
+        for(int square = 0; square < CheckersBoard.SQUARES; square++) {
+            if(board.owner(square) != -1) {render(square);}
         }
     }
 
-    private void setPiece(int[] coords, Piece newPiece) {
-        Piece oldPiece = board[coords[0]][coords[1]];
-        if(oldPiece != Piece.EMPTY) {
-            if (oldPiece.isHomeTeam()) {homePieceCount--;}
-            else {awayPieceCount--;}
+    //Shows whatever is on the square
+    private void render(int square) {
+        long pos = adj(CheckersBoard.x(square), 1, CheckersBoard.z(square));
+        int owner = board.owner(square);
+        if(owner == -1) {
+            removeModel(pos);
+            return;
         }
-
-        if(newPiece == Piece.EMPTY) {
-            removeModel(adj(new int[] {coords[0], 1, coords[1]}));
+        Piece piece;
+        if(square == selected) {
+            piece = board.isKing(square) ? Piece.SELECTKING : Piece.SELECT;
+        } else if(owner == 0) {
+            piece = board.isKing(square) ? Piece.HOMEKING : Piece.HOME;
         } else {
-            replaceModel(newPiece.getModel(), adj(new int[]{coords[0], 1, coords[1]}));
-            if (newPiece.isHomeTeam()) {homePieceCount++;}
-            else {awayPieceCount++;}
+            piece = board.isKing(square) ? Piece.AWAYKING : Piece.AWAY;
         }
-        board[coords[0]][coords[1]] = newPiece;
-    }
-
-    private Piece getPiece(int[] coords) {
-        return board[coords[0]][coords[1]];
+        replaceModel(piece.getModel(), pos);
     }
 
     /**
-     * Calculates and applies a move, and kings and/or reselects the checker if necessary.
-     * @param dest The EMPTY coordinates to move to
+     * Checks and applies one hop of the selected piece, and kings and/or reselects the checker if necessary.
+     * @param dest The empty square to move to
      * @return True if the move was successful, or false if not
      */
-    private boolean move(int[] dest) {
-        int avgX = (dest[0] + selPiece[0]) / 2;
-        int avgY = (dest[1] + selPiece[1]) / 2;
-
-        if((dest[1] - selPiece[1] == getDir()*2) || //Forward Jump
-                (dest[1] - selPiece[1] == getDir()*-2 && selKing)) {//Backward King Jump
-            if(Math.abs(dest[0] - selPiece[0]) == 2) {//X must be 2 distant
-                Piece middle = board[avgX][avgY];
-                if(middle != Piece.EMPTY && middle.isHomeTeam() != isHomeTurn()) {//Middle piece must be of the other's team
-                    Piece moving = getPiece(selPiece);
-                    getGameRecord().increment("move", getMove(dest));
-                    if((isHomeTurn() && dest[1] == board[0].length-1) || (!isHomeTurn() && dest[1] == 0)) {//King checkers that make it to the end
-                        moving = moving.getKing();
-                        getGameRecord().set("king", true);//Log event
-                    }
-                    setPiece(dest, moving);
-                    setPiece(new int[] {avgX, avgY}, Piece.EMPTY);//Remove jumped piece
-                    setPiece(selPiece, Piece.EMPTY);//Set old spot to empty
-                    selPiece = dest;//Set selected piece for calculation purposes
-                    selKing = moving.isKing();
-                    if(hasMoreJumps()) {//Calculate if there are more jumps available
-                        doubleJumping = true;
-                    } else {
-                        unselect();
-                        doubleJumping = false;
-                    }
-                    return true;
-                }
+    private boolean move(int dest) {
+        boolean jump = (board.jumpTargets(selected) & (1 << dest)) != 0;
+        if(!jump) {
+            if(doubleJumping) {
+                getPlayer().sendMessage("You have an additional jump available!");
+                return false;
             }
-        } else if(doubleJumping) {
-            getPlayer().sendMessage("You have an additional jump available!");
-            return false;
-        } else if(((dest[1] - selPiece[1] == getDir()) ||
-                    (dest[1] - selPiece[1] == -getDir() && selKing)) &&
-                    Math.abs(dest[0] - selPiece[0]) == 1) {//Regular move
-                if(jumpAvailable()) {
-                    getPlayer().sendMessage("You must take the jump available!");
-                    return false;
-                }
-                getGameRecord().increment("move", getMove(dest));
-                Piece moving = getPiece(selPiece);
-                if((isHomeTurn() && dest[1] == board[0].length-1) || (!isHomeTurn() && dest[1] == 0)) {//King checkers that make it to the end
-                    moving = moving.getKing();
-                    getGameRecord().set("king", true);//Log event
-                }
-                setPiece(dest, moving);
-                setPiece(selPiece, Piece.EMPTY);
-                selPiece = dest;
-                selKing = moving.isKing();
-                unselect();
-                doubleJumping = false;
-                return true;
-        }
-        return false;
-    }
-
-    /**
-     * Calculates whether the currently selected piece, selPiece[], is eligible for additional jumps after the first one
-     * @return True/False
-     */
-    private boolean hasMoreJumps() {
-        return checkJumps(selPiece);
-    }
-
-    /**
-     * Calculates whether the given Piece location (int[] coords) is eligible for additional jumps after the first one
-     * @return True/False
-     */
-    private boolean checkJumps(int[] coords) {
-        int farX, farZ, z;
-        for(int i = 0; i < (getPiece(coords).isKing() ? 2 : 1); i++) {
-            z = getDir() + (getDir() * -2 * i);
-            for(int x = -1; x <= 1; x += 2) {
-                farX = coords[0] + x*2;
-                farZ = coords[1] + z*2;
-
-                if(offBoard(farX) || offBoard(farZ)) {
-                    continue;
-                }
-                Piece farPiece = board[farX][farZ];
-                Piece midPiece = board[farX-x][farZ-z];
-                if(farPiece == Piece.EMPTY && midPiece != Piece.EMPTY && midPiece.isHomeTeam() != isHomeTurn() && !midPiece.isSelected()) {
-                    return true;
-                }
+            if((board.moveTargets(selected) & (1 << dest)) == 0) {return false;}
+            if(board.canJump()) {
+                getPlayer().sendMessage("You must take the jump available!");
+                return false;
             }
         }
-        return false;
-    }
 
-    private boolean jumpAvailable() {
-        for(int x = 0; x < board.length; x++) {
-            for(int z = 0; z < board[x].length; z++) {
-                if(board[x][z] != Piece.EMPTY && board[x][z].isHomeTeam() == isHomeTurn()) {
-                    if(checkJumps(new int[] {x, z})) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        getGameRecord().increment(MOVE_STAT, getMove(selected, dest));
+        int from = selected;
+        int jumped = jump ? CheckersBoard.square(
+                (CheckersBoard.x(from) + CheckersBoard.x(dest)) / 2, (CheckersBoard.z(from) + CheckersBoard.z(dest)) / 2) : -1;
+        logMove(getPlayer(), CheckersBoard.move(from, dest, jump ? 1 << jumped : 0));
+        boolean crowned = board.step(from, dest);
+        if(crowned) {getGameRecord().set(KING_STAT, true);}//Log event
+        render(from);
+        if(jump) {render(jumped);}
+
+        //Keep jumping with the same piece while it can, unless it was just crowned
+        doubleJumping = jump && !crowned && board.jumpTargets(dest) != 0;
+        selected = doubleJumping ? dest : -1;
+        render(dest);
+        if(!doubleJumping) {board.endTurn();}
+        return true;
     }
 
-    private boolean offBoard(int i) {
-        return i <= -1 || i >= board.length;
+    @Override
+    protected SearchState copyState() {
+        return new CheckersBoard(board);
     }
 
-    private int getDir() {
-        return isHomeTurn() ? 1 : -1;
+    @Override
+    protected void playAIMove(long move) {
+        int from = CheckersBoard.moveFrom(move), dest = CheckersBoard.moveTo(move);
+        getGameRecord().increment(MOVE_STAT, getMove(from, dest));
+        logMove(null, move);
+        boolean wasKing = board.isKing(from);
+        board.play(move);
+        if(!wasKing && board.isKing(dest)) {getGameRecord().set(KING_STAT, true);}//Log event
+        render(from);
+        for(int captured = CheckersBoard.moveCaptures(move); captured != 0; captured &= captured - 1) {
+            render(Integer.numberOfTrailingZeros(captured));
+        }
+        render(dest);
+        startNextTurn();
     }
 
-    private void select(Piece p, int[] coords) {
-        selKing = p.isKing();
-        selPiece = coords;
-        setPiece(coords, Piece.select(p));
+    private void select(int square) {
+        selected = square;
+        render(square);
     }
 
     private void unselect() {
-        if(selPiece == null) {return;}
-        setPiece(selPiece, Piece.unselect(getPiece(selPiece), isHomeTurn()));
-        selPiece = null;
+        if(selected == -1) {return;}
+        int square = selected;
+        selected = -1;
+        render(square);
     }
 
-    @EventHandler
+    @Override
     protected void onPlayerInteract(PlayerInteractEvent e) {
         if(inGame(e.getPlayer())) {
             e.setCancelled(true);
@@ -206,23 +127,26 @@ public final class Checkers extends TwoPlayerMinigame implements Listener {
             }
             Block b = e.getPlayer().getTargetBlockExact(getLongestSide()+10);//arbitrary value 10 to acc for hypotenuse
             if(b == null) {return;}
-            int[] coords = XZcoords(coords(b.getLocation()));
-            if(coords == null) {return;}
-            Piece clicked = getPiece(coords);
-
-            if(clicked != Piece.EMPTY) {//Piece clicked
+            long rel = coords(b);
+            int x = BlockPos.x(rel);
+            int z = BlockPos.z(rel);
+            if(!isPlayable(x, BlockPos.y(rel), z)) {return;}
+            int square = CheckersBoard.square(x, z);
+            int owner = board.owner(square);
+
+            if(owner != -1) {//Piece clicked
                 if(doubleJumping) {
                     p.sendMessage("You have an additional jump available!");
                     return;
                 }
-                if (isSelected() && clicked.isSelected()) {//Unselect
+                if(square == selected) {//Unselect
                     unselect();
-                } else if (clicked.isHomeTeam() == isHomeTurn()) {//Select
+                } else if(owner == board.getPlayer()) {//Select
                     unselect();
-                    select(clicked, coords);
+                    select(square);
                 }
             } else if(isSelected()) {//Board clicked & piece ready to move
-                if(move(coords)) {
+                if(move(square)) {
                     if(doubleJumping) {
                         p.sendMessage("You must take your extra jump!");
                     } else {
@@ -233,75 +157,30 @@ public final class Checkers extends TwoPlayerMinigame implements Listener {
         }
     }
 
-    private int[] XZcoords(int[] coords) {
-        if(coords != null) {
-            for(int i = 0; i < coords.length; i+=2) {
-                if(coords[i] < 0 || coords[i] >= board.length) {
-                    return null;
-                }
-            }
-            if(coords[1] != 0 && coords[1] != 1) { //Above/below the board
-                return null;
-            } else if(coords[2] % 2 != coords[0] % 2) { //Empty unplayable space
-                return null;
-            }
-            return new int[] {coords[0], coords[2]};
-        }
-        return null;
+    //Whether the given relative coordinates are a playable square of the board
+    private boolean isPlayable(int x, int y, int z) {
+        if(y != 0 && y != 1) {return false;} //Above/below the board
+        return CheckersBoard.square(x, z) != -1; //Else off the board, or an empty unplayable space
     }
 
     private boolean isSelected() {
-        return selPiece != null;
+        return selected != -1;
     }
 
-    private String getMove(int[] dest) {
-        return ((char)(72 - selPiece[0])) + "" + selPiece[1] + ((char)(72 - dest[0])) + "" + dest[1];
+    private String getMove(int from, int dest) {
+        return ((char)(72 - CheckersBoard.x(from))) + "" + CheckersBoard.z(from) +
+                ((char)(72 - CheckersBoard.x(dest))) + "" + CheckersBoard.z(dest);
     }
 
+    //The player about to move has been left with no pieces or no legal moves
     @Override
     protected boolean isGameOver() {
-        return (isHomeTurn() ? awayPieceCount : homePieceCount) <= 0;
+        return !board.hasMoves();
     }
 
-    @Getter
-    @AllArgsConstructor
     private enum Piece {
-        EMPTY(false, false),
-        HOME(true, false),
-        AWAY(false, false),
-        SELECT(true, true),
-        HOMEKING(true, false),
-        AWAYKING(false, false),
-        SELECTKING(true, true);
-
-        private final boolean homeTeam;
-        private final boolean selected;
-
-        public static Piece unselect(Piece p, boolean homeTeam) {
-            if(p == SELECT) {
-                return homeTeam? HOME : AWAY;
-            } else {
-                return homeTeam? HOMEKING : AWAYKING;
-            }
-        }
-
-        public static Piece select(Piece p) {
-            if(!p.isKing()) {
-                return SELECT;
-            } else {
-                return SELECTKING;
-            }
-        }
-
-        public boolean isKing() {
-            return this == HOMEKING || this == AWAYKING || this == SELECTKING;
-        }
-
-        public Piece getKing() {
-            if(this == HOME) {return HOMEKING;}
-            else {return AWAYKING;}
-        }
+        HOME, AWAY, SELECT, HOMEKING, AWAYKING, SELECTKING;
 
         public String getModel() {return "checkers_"+this.name().toLowerCase();}
     }
-}
\ No newline at end of file
+}
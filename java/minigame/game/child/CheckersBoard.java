@@ -0,0 +1,312 @@
+package minigame.game.child;
+
+import minigame.game.ai.SearchState;
+
+/**
+ * The rules of Checkers over 32-bit bitboards of each player's pieces and of kings. Square i is row z = i / 4 of the
+ * board, at x = 2 * (i % 4) + z % 2, so only the playable (x % 2 == z % 2) squares are stored. Home starts on the low
+ * rows and its men move up; away's men move down. Captures are compulsory, and a jump must be continued while the
+ * jumping piece can capture again, unless it was just crowned.
+ *
+ * Moves are played two ways: one hop at a time with step() for players clicking through them, or whole (including
+ * multi-jump chains) through SearchState for searches. Each move from generateMoves() holds its start and end square and
+ * the pieces it captures.
+ */
+public final class CheckersBoard implements SearchState {
+    public static final int SQUARES = 32;
+    private static final int MAX_MOVES = 128;
+    private static final int HOME_KING_ROW = 0xF0000000; //Row 7, where home's men are crowned
+    private static final int AWAY_KING_ROW = 0x0000000F; //Row 0
+
+    //Per direction - up-left, up-right, down-left, down-right - the square next to each square and the one past it, or -1
+    private static final int[][] NEIGHBOR = new int[4][SQUARES];
+    private static final int[][] JUMP = new int[4][SQUARES];
+
+    static {
+        int[][] steps = {{-1, 1}, {1, 1}, {-1, -1}, {1, -1}};
+        for(int dir = 0; dir < 4; dir++) {
+            for(int sq = 0; sq < SQUARES; sq++) {
+                NEIGHBOR[dir][sq] = square(x(sq) + steps[dir][0], z(sq) + steps[dir][1]);
+                JUMP[dir][sq] = square(x(sq) + 2 * steps[dir][0], z(sq) + 2 * steps[dir][1]);
+            }
+        }
+    }
+
+    private final int[] pieces = new int[2]; //By player; home (0) moves first
+    private int kings = 0;
+    private int player = 0;
+    private int[] history = new int[64]; //home, away, kings & player before each move played through SearchState
+    private int historySize = 0;
+
+    //Move generation scratch
+    private long[] genOut;
+    private int genCount;
+
+    //The starting position
+    public CheckersBoard() {
+        for(int sq = 0; sq < SQUARES; sq++) {
+            if(z(sq) < 3) {pieces[0] |= 1 << sq;}
+            else if(z(sq) > 4) {pieces[1] |= 1 << sq;}
+        }
+    }
+
+    public CheckersBoard(CheckersBoard other) {
+        pieces[0] = other.pieces[0];
+        pieces[1] = other.pieces[1];
+        kings = other.kings;
+        player = other.player;
+    }
+
+    /*
+        Squares
+     */
+
+    //The square at board coordinates x, z, or -1 if off the board or unplayable
+    public static int square(int x, int z) {
+        if(x < 0 || x > 7 || z < 0 || z > 7 || x % 2 != z % 2) {return -1;}
+        return z * 4 + x / 2;
+    }
+
+    public static int x(int square) {
+        return 2 * (square & 3) + ((square >> 2) & 1);
+    }
+
+    public static int z(int square) {
+        return square >> 2;
+    }
+
+    /*
+        Board state
+     */
+
+    //0 for home, 1 for away
+    public int getPlayer() {
+        return player;
+    }
+
+    //Player owning the piece on the square, or -1 if empty
+    public int owner(int square) {
+        if((pieces[0] & (1 << square)) != 0) {return 0;}
+        if((pieces[1] & (1 << square)) != 0) {return 1;}
+        return -1;
+    }
+
+    public boolean isKing(int square) {
+        return (kings & (1 << square)) != 0;
+    }
+
+    public int countPieces(int player) {
+        return Integer.bitCount(pieces[player]);
+    }
+
+    /*
+        Hop-by-hop play
+     */
+
+    //Whether the side to move can capture anywhere, and so must
+    public boolean canJump() {
+        for(int own = pieces[player]; own != 0; own &= own - 1) {
+            if(jumpTargets(Integer.numberOfTrailingZeros(own)) != 0) {return true;}
+        }
+        return false;
+    }
+
+    //Squares the piece on the given square could land on by capturing once
+    public int jumpTargets(int square) {
+        int empty = ~(pieces[0] | pieces[1]);
+        int opponent = pieces[player ^ 1];
+        int targets = 0;
+        for(int dir = firstDir(square); dir <= lastDir(square); dir++) {
+            int land = JUMP[dir][square];
+            if(land >= 0 && (opponent & (1 << NEIGHBOR[dir][square])) != 0 && (empty & (1 << land)) != 0) {
+                targets |= 1 << land;
+            }
+        }
+        return targets;
+    }
+
+    //Squares the piece on the given square could move to without capturing
+    public int moveTargets(int square) {
+        int empty = ~(pieces[0] | pieces[1]);
+        int targets = 0;
+        for(int dir = firstDir(square); dir <= lastDir(square); dir++) {
+            int to = NEIGHBOR[dir][square];
+            if(to >= 0 && (empty & (1 << to)) != 0) {targets |= 1 << to;}
+        }
+        return targets;
+    }
+
+    /**
+     * Moves the side to move's piece one hop, which must be one of its moveTargets or jumpTargets, removing any piece
+     * jumped and crowning it on the far row. The turn doesn't pass until endTurn(), so a jump can be continued.
+     * @return True if the piece was crowned
+     */
+    public boolean step(int from, int to) {
+        int mover = 1 << from;
+        if(Math.abs(z(to) - z(from)) == 2) {
+            int captured = ~(1 << square((x(from) + x(to)) / 2, (z(from) + z(to)) / 2));
+            pieces[player ^ 1] &= captured;
+            kings &= captured;
+        }
+        pieces[player] = (pieces[player] & ~mover) | (1 << to);
+        if((kings & mover) != 0) {
+            kings = (kings & ~mover) | (1 << to);
+            return false;
+        }
+        if(((player == 0 ? HOME_KING_ROW : AWAY_KING_ROW) & (1 << to)) != 0) {
+            kings |= 1 << to;
+            return true;
+        }
+        return false;
+    }
+
+    public void endTurn() {
+        player ^= 1;
+    }
+
+    //Whether the side to move has any legal move
+    public boolean hasMoves() {
+        for(int own = pieces[player]; own != 0; own &= own - 1) {
+            int sq = Integer.numberOfTrailingZeros(own);
+            if(moveTargets(sq) != 0 || jumpTargets(sq) != 0) {return true;}
+        }
+        return false;
+    }
+
+    /*
+        Whole moves
+     */
+
+    public static int moveFrom(long move) {
+        return (int) (move & 31);
+    }
+
+    public static int moveTo(long move) {
+        return (int) ((move >> 5) & 31);
+    }
+
+    public static int moveCaptures(long move) {
+        return (int) (move >>> 10);
+    }
+
+    public static long move(int from, int to, int captured) {
+        return from | (to << 5) | ((captured & 0xFFFFFFFFL) << 10);
+    }
+
+    @Override
+    public int maxMoves() {
+        return MAX_MOVES;
+    }
+
+    //Every capture sequence if there are any, as captures are compulsory, else every plain move
+    @Override
+    public int generateMoves(long[] out) {
+        genOut = out;
+        genCount = 0;
+        int own = pieces[player];
+        for(int left = own; left != 0; left &= left - 1) {
+            int from = Integer.numberOfTrailingZeros(left);
+            jumpChains(from, from, isKing(from), 0, (own & ~(1 << from)) | pieces[player ^ 1]);
+        }
+        if(genCount == 0) {
+            for(int left = own; left != 0; left &= left - 1) {
+                int from = Integer.numberOfTrailingZeros(left);
+                for(int targets = moveTargets(from); targets != 0 && genCount < out.length; targets &= targets - 1) {
+                    out[genCount++] = move(from, Integer.numberOfTrailingZeros(targets), 0);
+                }
+            }
+        }
+        genOut = null;
+        return genCount;
+    }
+
+    /**
+     * Adds every way of continuing a capture sequence from square
+     * @param occupied Every piece still on the board, less the one jumping
+     */
+    private void jumpChains(int from, int square, boolean king, int captured, int occupied) {
+        int opponent = pieces[player ^ 1] & ~captured;
+        boolean extended = false;
+        for(int dir = king || player == 0 ? 0 : 2; dir <= (king || player == 1 ? 3 : 1); dir++) {
+            int land = JUMP[dir][square];
+            if(land < 0 || (opponent & (1 << NEIGHBOR[dir][square])) == 0 || (occupied & (1 << land)) != 0) {continue;}
+            extended = true;
+            int nowCaptured = captured | (1 << NEIGHBOR[dir][square]);
+            if(!king && ((player == 0 ? HOME_KING_ROW : AWAY_KING_ROW) & (1 << land)) != 0) {//Crowning ends the move
+                add(move(from, land, nowCaptured));
+            } else {
+                jumpChains(from, land, king, nowCaptured, occupied & ~(1 << NEIGHBOR[dir][square]));
+            }
+        }
+        if(!extended && captured != 0) {add(move(from, square, captured));}
+    }
+
+    private void add(long move) {
+        if(genCount < genOut.length) {genOut[genCount++] = move;}
+    }
+
+    @Override
+    public void play(long move) {
+        if(historySize + 4 > history.length) {
+            int[] grown = new int[history.length * 2];
+            System.arraycopy(history, 0, grown, 0, historySize);
+            history = grown;
+        }
+        history[historySize++] = pieces[0];
+        history[historySize++] = pieces[1];
+        history[historySize++] = kings;
+        history[historySize++] = player;
+
+        int from = moveFrom(move), to = moveTo(move), captured = moveCaptures(move);
+        pieces[player ^ 1] &= ~captured;
+        kings &= ~captured;
+        pieces[player] = (pieces[player] & ~(1 << from)) | (1 << to);
+        if((kings & (1 << from)) != 0 || ((player == 0 ? HOME_KING_ROW : AWAY_KING_ROW) & (1 << to)) != 0) {
+            kings = (kings & ~(1 << from)) | (1 << to);
+        }
+        player ^= 1;
+    }
+
+    @Override
+    public void undo() {
+        player = history[--historySize];
+        kings = history[--historySize];
+        pieces[1] = history[--historySize];
+        pieces[0] = history[--historySize];
+    }
+
+    @Override
+    public Outcome outcome() {
+        return pieces[player] == 0 ? Outcome.LOSS : Outcome.ONGOING;//No moves left is found by the search itself
+    }
+
+    @Override
+    public int evaluate() {
+        int mine = pieces[player], theirs = pieces[player ^ 1];
+        int score = 100 * (Integer.bitCount(mine & ~kings) - Integer.bitCount(theirs & ~kings))
+                + 160 * (Integer.bitCount(mine & kings) - Integer.bitCount(theirs & kings));
+        //Men closer to being crowned
+        for(int men = pieces[0] & ~kings; men != 0; men &= men - 1) {
+            score += (player == 0 ? 1 : -1) * z(Integer.numberOfTrailingZeros(men));
+        }
+        for(int men = pieces[1] & ~kings; men != 0; men &= men - 1) {
+            score += (player == 1 ? 1 : -1) * (7 - z(Integer.numberOfTrailingZeros(men)));
+        }
+        return score;
+    }
+
+    @Override
+    public long key() {
+        long h = ((pieces[0] & 0xFFFFFFFFL) << 32 | (pieces[1] & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        h ^= (kings & 0xFFFFFFFFL) * 0xC2B2AE3D27D4EB4FL;
+        return h ^ (h >>> 29) ^ player;
+    }
+
+    private int firstDir(int square) {
+        return isKing(square) || owner(square) == 0 ? 0 : 2;
+    }
+
+    private int lastDir(int square) {
+        return isKing(square) || owner(square) == 1 ? 3 : 1;
+    }
+}
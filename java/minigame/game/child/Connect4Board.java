@@ -0,0 +1,247 @@
+package minigame.game.child;
+
+import minigame.game.ai.Negamax;
+import minigame.game.ai.SearchState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Connect 4 position: one bitboard of pieces per player, plus the height of each column. Column x, row y is bit
+ * x * (HEIGHT + 1) + y. The spare bit on top of each column stops shifts from wrapping into the next column, so four in
+ * a row is found with a few shifts and ANDs instead of by walking the board.
+ */
+public final class Connect4Board implements SearchState {
+    public static final int WIDTH = 7;
+    public static final int HEIGHT = 7;
+    private static final int STRIDE = HEIGHT + 1;
+    private static final long BOTTOM = bottomRow();
+    private static final long BOARD = BOTTOM * ((1L << HEIGHT) - 1); //Every playable cell
+    private static final int[] ORDER = centreFirst(); //Centre columns take part in the most lines
+    private static final int[] LINES = {1, STRIDE, STRIDE + 1, STRIDE - 1}; //Vertical, horizontal, then both diagonals
+    private static final int[][] WALKS = {{1, 0}, {0, 1}, {1, 1}, {1, -1}}; //The same lines as x/y steps, for the benchmark's board walk
+
+    private final long[] pieces = new long[2]; //By player; home (0) moves first
+    private final int[] heights = new int[WIDTH];
+    private final int[] history = new int[WIDTH * HEIGHT]; //Columns played, for undo
+    private int moves = 0;
+
+    public Connect4Board() {}
+
+    public Connect4Board(Connect4Board other) {
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        System.arraycopy(other.heights, 0, heights, 0, heights.length);
+        System.arraycopy(other.history, 0, history, 0, history.length);
+        moves = other.moves;
+    }
+
+    public boolean canPlay(int x) {
+        return heights[x] < HEIGHT;
+    }
+
+    /**
+     * Drops the next player's piece down column x, which must not be full
+     * @return The row it landed in
+     */
+    public int drop(int x) {
+        int y = heights[x]++;
+        pieces[moves & 1] |= 1L << (x * STRIDE + y);
+        history[moves++] = x;
+        return y;
+    }
+
+    //Whether the player who made the last move has four in a row
+    public boolean lastMoveWon() {
+        return moves > 0 && fourInARow(pieces[(moves - 1) & 1]);
+    }
+
+    public boolean isFull() {
+        return moves == WIDTH * HEIGHT;
+    }
+
+    //0 for home, 1 for away
+    public int getPlayer() {
+        return moves & 1;
+    }
+
+    private static boolean fourInARow(long b) {
+        for(int shift : LINES) {
+            long pairs = b & (b >>> shift);
+            if((pairs & (pairs >>> (2 * shift))) != 0) {return true;}
+        }
+        return false;
+    }
+
+    //Empty cells that would complete four in a row for the given pieces
+    private static long winningCells(long p, long mask) {
+        long cells = (p << 1) & (p << 2) & (p << 3); //Vertical
+        for(int shift = STRIDE - 1; shift <= STRIDE + 1; shift++) {
+            long two = (p << shift) & (p << 2 * shift);
+            cells |= two & (p << 3 * shift);
+            cells |= two & (p >>> shift);
+            two = (p >>> shift) & (p >>> 2 * shift);
+            cells |= two & (p << shift);
+            cells |= two & (p >>> 3 * shift);
+        }
+        return cells & (BOARD ^ mask);
+    }
+
+    /*
+        SearchState
+     */
+
+    @Override
+    public int maxMoves() {
+        return WIDTH;
+    }
+
+    @Override
+    public int generateMoves(long[] out) {
+        int count = 0;
+        for(int x : ORDER) {
+            if(canPlay(x)) {out[count++] = x;}
+        }
+        return count;
+    }
+
+    @Override
+    public void play(long move) {
+        drop((int) move);
+    }
+
+    @Override
+    public void undo() {
+        int x = history[--moves];
+        int y = --heights[x];
+        pieces[moves & 1] &= ~(1L << (x * STRIDE + y));
+    }
+
+    @Override
+    public Outcome outcome() {
+        if(lastMoveWon()) {return Outcome.LOSS;}
+        return isFull() ? Outcome.DRAW : Outcome.ONGOING;
+    }
+
+    @Override
+    public int evaluate() {
+        long mask = pieces[0] | pieces[1];
+        long mine = pieces[moves & 1], theirs = pieces[(moves + 1) & 1];
+        long centre = ((1L << HEIGHT) - 1) << (WIDTH / 2 * STRIDE);
+        return 8 * (Long.bitCount(winningCells(mine, mask)) - Long.bitCount(winningCells(theirs, mask)))
+                + Long.bitCount(mine & centre) - Long.bitCount(theirs & centre);
+    }
+
+    @Override
+    public long key() {
+        //Unique per position: the pieces of the side to move, plus the lowest empty cell of every column
+        return pieces[moves & 1] + (pieces[0] | pieces[1]) + BOTTOM;
+    }
+
+    private static long bottomRow() {
+        long bottom = 0;
+        for(int x = 0; x < WIDTH; x++) {
+            bottom |= 1L << (x * STRIDE);
+        }
+        return bottom;
+    }
+
+    private static int[] centreFirst() {
+        int[] order = new int[WIDTH];
+        for(int i = 0; i < WIDTH; i++) {
+            order[i] = WIDTH / 2 + (i % 2 == 0 ? i / 2 : -(i / 2 + 1));
+        }
+        return order;
+    }
+
+    /**
+     * Times the same random games (every drop followed by a win check) on this board and on the reference board walk
+     * the game used before bitboards, checking they agree on every game, then times a search of the empty board
+     * @return Lines describing the results
+     */
+    public static List<String> benchmark(int depth) {
+        Random random = new Random(WIDTH * 31L + HEIGHT);
+        int games = 100_000;
+
+        //Whole random games, played out until the board is full, so both engines get exactly the same drops
+        byte[][] columns = new byte[games][WIDTH * HEIGHT];
+        for(int i = 0; i < games; i++) {
+            int[] heights = new int[WIDTH];
+            for(int move = 0; move < WIDTH * HEIGHT; ) {
+                int x = random.nextInt(WIDTH);
+                if(heights[x] == HEIGHT) {continue;}
+                heights[x]++;
+                columns[i][move++] = (byte) x;
+            }
+        }
+
+        //The drop each game was won on (or the board filled up), by engine
+        int[] bitboardWins = new int[games];
+        long dropped = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < games; i++) {
+            Connect4Board board = new Connect4Board();
+            int move = 0;
+            while(move < WIDTH * HEIGHT) {
+                board.drop(columns[i][move++]);
+                if(board.lastMoveWon()) {break;}
+            }
+            bitboardWins[i] = move;
+            dropped += move;
+        }
+        long bitboardNanos = System.nanoTime() - start;
+
+        int mismatches = 0;
+        start = System.nanoTime();
+        for(int i = 0; i < games; i++) {
+            int[][] cells = new int[WIDTH][HEIGHT]; //0 empty, else the player + 1
+            int[] heights = new int[WIDTH];
+            int move = 0;
+            while(move < WIDTH * HEIGHT) {
+                int x = columns[i][move], y = heights[x]++;
+                cells[x][y] = (move & 1) + 1;
+                move++;
+                if(isRowFinished(cells, x, y)) {break;}
+            }
+            if(move != bitboardWins[i]) {mismatches++;}
+        }
+        long walkNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        Negamax.Result result = new Negamax(20).search(new Connect4Board(), depth, TimeUnit.SECONDS.toNanos(10));
+        long searchMicros = Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+        List<String> results = new ArrayList<>();
+        results.add("Connect 4 benchmark: "+games+" random games, "+dropped+" drops and win checks");
+        results.add("Connect 4 win check: board walk "+(walkNanos / Math.max(1, dropped))+"ns per drop, bitboard "+
+                (bitboardNanos / Math.max(1, dropped))+"ns per drop, "+mismatches+" games disagreed");
+        results.add("Connect 4 search: depth "+result.getDepth()+" of "+depth+", "+result.getNodes()+" nodes at "+
+                (result.getNodes() * 1000 / searchMicros)+
+                " nodes/ms, best column "+result.getMove()+" (score "+result.getScore()+")");
+        return results;
+    }
+
+    /**
+     * Reference win check for the benchmark: walks out from the newly placed piece horizontally, vertically and along
+     * both diagonals, as the game did before it used bitboards
+     * @param cells Each cell's owner by column and row, 0 if empty
+     * @return Whether the piece at x, y finishes a row of 4
+     */
+    private static boolean isRowFinished(int[][] cells, int origX, int origY) {
+        int toMatch = cells[origX][origY];
+        for(int[] d : WALKS) {
+            int count = 1;
+            for(int x = origX + d[0], y = origY + d[1]; x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT && cells[x][y] == toMatch;
+                    x += d[0], y += d[1]) {
+                count++;
+            }
+            for(int x = origX - d[0], y = origY - d[1]; x >= 0 && x < WIDTH && y >= 0 && y < HEIGHT && cells[x][y] == toMatch;
+                    x -= d[0], y -= d[1]) {
+                count++;
+            }
+            if(count >= 4) {return true;}
+        }
+        return false;
+    }
+}
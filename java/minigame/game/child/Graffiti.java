@@ -9,14 +9,14 @@ import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.BlockFace;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.entity.ProjectileHitEvent;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.List;
 
-public class Graffiti extends Minigame implements Listener {
+public class Graffiti extends Minigame {
+    private final int PAINTED_STAT = getGameRecord().playerStat("blocks_painted");
+
     public Graffiti(World world, String region, List<MinigameTeam> teams, Location exit) {
         super(MinigameSettings.GRAFFITI, world, region, teams, exit);
     }
@@ -35,7 +35,7 @@ public class Graffiti extends Minigame implements Listener {
         p.getInventory().setItem(9, new ItemStack(Material.ARROW, 1));
     }
 
-    @EventHandler
+    @Override
     protected void onProjectileHit(ProjectileHitEvent e) {
         if(!(e.getEntity().getShooter() instanceof Player)) {return;}
         Player p = (Player) e.getEntity().getShooter();
@@ -60,17 +60,18 @@ public class Graffiti extends Minigame implements Listener {
                 if(!validBlock(b) || b.getType() == color) {continue;}
                 blocksChanged++;
                 b.setType(color);
+                markDirty(b);
                 b.getState().update();
             }
         }
 
-        getGameRecord().increment(p, "blocks_painted", blocksChanged);
+        getGameRecord().increment(p, PAINTED_STAT, blocksChanged);
 
         setInventory(p);
     }
 
     private boolean validBlock(Block b) {
-        return getGameArea().contains(b.getX(), b.getY(), b.getZ()) && b.getType().toString().endsWith("_WOOL");
+        return inGameArea(b) && b.getType().toString().endsWith("_WOOL");
     }
 
     private int getBrushSize(String brushType) {
@@ -1,35 +1,32 @@
 package minigame.game.child;
 
-import minigame.Main;
 import minigame.game.Minigame;
 import minigame.game.MinigameSettings;
 import minigame.player.PlayerManager;
 import minigame.util.MinigameTeam;
 import minigame.util.Misc;
+import minigame.util.WheelTask;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
-import org.bukkit.event.EventHandler;
-import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
 
-public class Tag extends Minigame implements Listener {
+public class Tag extends Minigame {
     private final int MAX_TAG_SEC = 30;
     private final int GAME_LEN_SEC = 300;
     private final int MAX_WIN_TIME_DIFF = 2;
+    private final int TAGGED_STAT = getGameRecord().playerStat("tagged");
     private Instant lastTag = Instant.now();
     private boolean forcedTag = true;
     private Player it;
     private final HashMap<UUID, Duration> timeTagged = new HashMap<>();
     private int amtWinners = 1;
-    private final BukkitTask timeLimit;
+    private final WheelTask timeLimit;
     private boolean outOfTime = false;
 
     public Tag(World world, String region, List<MinigameTeam> teams, Location exit) {
@@ -55,8 +52,9 @@ public class Tag extends Minigame implements Listener {
 
     private void tag(Player p) {
         p.sendMessage(Misc.color("&cYou're it!"));
+        getReplay().tag(forcedTag ? null : it, p);
         if(it != null) {
-            getGameRecord().set(it, "tagged", Duration.between(lastTag, Instant.now()));
+            getGameRecord().set(it, TAGGED_STAT, Duration.between(lastTag, Instant.now()));
             getGameRecord().nextRound();
         }
         it = p;
@@ -86,8 +84,8 @@ public class Tag extends Minigame implements Listener {
         return null;
     }
 
-    @EventHandler
-    protected void onPlayerTag(EntityDamageByEntityEvent e) {
+    @Override
+    protected void onEntityDamageByEntity(EntityDamageByEntityEvent e) {
         if(!(e.getEntity() instanceof Player) || !(e.getDamager() instanceof Player)) {return;}
         Player victim = (Player) e.getEntity();
         Player perp = (Player) e.getDamager();
@@ -163,14 +161,14 @@ public class Tag extends Minigame implements Listener {
         super.exit();
     }
 
-    private BukkitTask setTimeLimit() {
+    private WheelTask setTimeLimit() {
         //Conclude the game after the amount of time specified in GAME_LEN_SEC
-        return new BukkitRunnable() {
+        return new WheelTask() {
             @Override
             public void run() {
                 outOfTime = true;
                 exit();
             }
-        }.runTaskLater(Main.getInstance(), 20 * GAME_LEN_SEC);
+        }.runTaskLater(20 * GAME_LEN_SEC);
     }
 }
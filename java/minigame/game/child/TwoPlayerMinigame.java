@@ -3,7 +3,11 @@ package minigame.game.child;
 import lombok.Getter;
 import minigame.game.Minigame;
 import minigame.game.MinigameSettings;
+import minigame.game.ai.AIPlayer;
+import minigame.game.ai.Negamax;
+import minigame.game.ai.SearchState;
 import minigame.util.MinigameTeam;
+import minigame.util.WheelTask;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
@@ -17,6 +21,8 @@ public abstract class TwoPlayerMinigame extends Minigame {
     @Getter private boolean homeTurn = true;
     private Instant turnStart;
     private final Duration[] timeRemaining = {timeLimit(), timeLimit()};
+    private final AIPlayer ai; //Plays for whichever team has no Players, or null if both are human
+    private final boolean aiHome;
 
     protected Duration timeLimit() {return Duration.ofMinutes(10);}
 
@@ -25,6 +31,51 @@ public abstract class TwoPlayerMinigame extends Minigame {
 
         turnStart = Instant.now();
         startTimer((int)timeRemaining[homeTurn? 0 : 1].getSeconds(), 1, this::notifyPlayer, this::getTeam);
+
+        //A lone Player is matched against the computer
+        aiHome = getTeams().get(0).getPlayers().isEmpty();
+        if((aiHome || getTeams().get(1).getPlayers().isEmpty()) && gameType.getAiDifficulty() != null) {
+            ai = new AIPlayer(gameType.getAiDifficulty());
+            if(aiHome) {
+                whenBuilt(() -> new WheelTask() {//Once our subclass is constructed, and the Player has had a look
+                    @Override
+                    public void run() {
+                        aiTurn();
+                    }
+                }.runTaskLater(20));
+            }
+        } else {
+            ai = null;
+        }
+    }
+
+    //A copy of the position for the AI to search
+    protected abstract SearchState copyState();
+
+    //Plays the AI's chosen move, then starts the next turn
+    protected abstract void playAIMove(long move);
+
+    private void aiTurn() {
+        if(ai == null || homeTurn != aiHome) {return;}
+        ai.chooseMove(copyState(), move -> {
+            if(homeTurn != aiHome) {return;}
+            if(move == Negamax.NO_MOVE) {//The search failed, or found nothing to play
+                move = firstLegalMove();
+            }
+            if(move != Negamax.NO_MOVE) {
+                playAIMove(move);
+            } else {//The AI can't move, so it loses rather than sitting out its time bank
+                homeTurn = !homeTurn;
+                endGame();
+            }
+        });
+    }
+
+    private long firstLegalMove() {
+        SearchState state = copyState();
+        if(state.outcome() != SearchState.Outcome.ONGOING) {return Negamax.NO_MOVE;}
+        long[] moves = new long[state.maxMoves()];
+        return state.generateMoves(moves) > 0 ? moves[0] : Negamax.NO_MOVE;
     }
 
     protected void startNextTurn() {
@@ -39,6 +90,7 @@ public abstract class TwoPlayerMinigame extends Minigame {
         stopTimer(0);
         getGameRecord().nextRound();
         startTimer((int)timeRemaining[homeTurn? 0 : 1].getSeconds(), 1, this::notifyPlayer, this::getTeam);
+        aiTurn();
     }
 
     private String notifyPlayer(int timeRemaining) {
@@ -59,19 +111,38 @@ public abstract class TwoPlayerMinigame extends Minigame {
 
     protected abstract boolean isGameOver();
 
+    //Whether the game ended with nobody winning, e.g. a full Connect 4 board
+    protected boolean isDraw() {return false;}
+
     protected void endGame() {
-        getPlayer().sendMessage("Congratulations! You have won!");
-        getEnemy().sendMessage("Better luck next time!");
+        if(isDraw()) {//No winner is recorded, so nobody gains or loses elo
+            if(getPlayer() != null) {getPlayer().sendMessage("It's a draw!");}
+            if(getEnemy() != null) {getEnemy().sendMessage("It's a draw!");}
+            exit();
+            return;
+        }
+        if(getPlayer() != null) {getPlayer().sendMessage("Congratulations! You have won!");}
+        if(getEnemy() != null) {getEnemy().sendMessage("Better luck next time!");}
         getGameRecord().setGameWinner(currentTeam());
         exit();
     }
 
+    @Override
+    protected void exit() {
+        if(ai != null) {ai.cancel();}
+        super.exit();
+    }
+
+    //The Player whose turn it is, or null if it's the AI's
     protected Player getPlayer() {
-        return homeTurn ? getTeams().get(0).getPlayers().get(0) : getTeams().get(1).getPlayers().get(0);
+        List<Player> players = getTeams().get(homeTurn ? 0 : 1).getPlayers();
+        return players.isEmpty() ? null : players.get(0);
     }
 
+    //The Player waiting for their turn, or null if it's the AI
     protected Player getEnemy() {
-        return homeTurn ? getTeams().get(1).getPlayers().get(0) : getTeams().get(0).getPlayers().get(0);
+        List<Player> players = getTeams().get(homeTurn ? 1 : 0).getPlayers();
+        return players.isEmpty() ? null : players.get(0);
     }
 
     private MinigameTeam currentTeam() {
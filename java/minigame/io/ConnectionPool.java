@@ -0,0 +1,208 @@
+package minigame.io;
+
+import minigame.Main;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small fixed-size JDBC connection pool, so the save writer, profile workers and login threads can each talk to the
+ * database at the same time instead of queueing on one socket.
+ * Idle connections are validated before reuse and recycled before MySQL's wait_timeout can close them on us.
+ */
+public class ConnectionPool {
+    private static final long WAIT_SLICE_MILLIS = 100;
+
+    private final String url;
+    private final int maxSize;
+    private final long timeoutMillis;
+    private final long validateAfterMillis;
+    private final long maxLifetimeMillis;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    //Metrics
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong(); //Borrows that had to wait for another thread to return a connection
+    private final AtomicLong reconnects = new AtomicLong(); //Connections thrown away for being dead or too old
+
+    @FunctionalInterface
+    public interface SQLFunction<T> {
+        T apply(Connection con) throws SQLException;
+    }
+
+    public ConnectionPool(String url, int maxSize, int timeoutSeconds, int validateAfterSeconds, int maxLifetimeMinutes) {
+        this.url = url;
+        this.maxSize = maxSize;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.validateAfterMillis = TimeUnit.SECONDS.toMillis(validateAfterSeconds);
+        this.maxLifetimeMillis = TimeUnit.MINUTES.toMillis(maxLifetimeMinutes);
+    }
+
+    /**
+     * Runs the given function with a pooled connection. Dead connections (e.g. dropped by the server overnight) are
+     * weeded out and replaced while borrowing, before f runs. Once f has started it is never retried, since it may
+     * already have written something - a dead connection is then discarded and the error passed on.
+     * @param f Function to run; must not keep the Connection after returning
+     * @return Whatever f returns
+     * @throws SQLException If f fails, or no connection could be obtained in time
+     */
+    public <T> T execute(SQLFunction<T> f) throws SQLException {
+        PooledConnection pc = borrow();
+        try {
+            T result = f.apply(pc.con);
+            release(pc);
+            return result;
+        } catch(SQLException e) {
+            if(isConnectionError(e)) {
+                discard(pc);
+            } else {
+                release(pc);
+            }
+            throw e;
+        } catch(RuntimeException e) {
+            discard(pc);
+            throw e;
+        }
+    }
+
+    private PooledConnection borrow() throws SQLException {
+        if(closed) {throw new SQLException("Connection pool is closed");}
+        borrows.incrementAndGet();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        boolean waited = false;
+        while(true) {
+            PooledConnection pc = idle.pollFirst();
+            if(pc == null) {
+                pc = tryOpen();
+            }
+            if(pc == null) {
+                if(!waited) {
+                    waits.incrementAndGet();
+                    waited = true;
+                }
+                long left = deadline - System.currentTimeMillis();
+                if(left <= 0) {
+                    throw new SQLTransientConnectionException("Timed out waiting for a database connection ("+maxSize+" in use)");
+                }
+                try {
+                    //In slices, since a discarded connection frees a slot without anything being returned to idle
+                    pc = idle.pollFirst(Math.min(left, WAIT_SLICE_MILLIS), TimeUnit.MILLISECONDS);
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted waiting for a database connection", e);
+                }
+                if(pc == null) {continue;}
+            }
+            if(isUsable(pc)) {
+                active.incrementAndGet();
+                return pc;
+            }
+            discard(pc, true);
+        }
+    }
+
+    //Opens a new connection if we're under the pool size, else returns null
+    private PooledConnection tryOpen() throws SQLException {
+        while(true) {
+            int current = open.get();
+            if(current >= maxSize) {return null;}
+            if(open.compareAndSet(current, current + 1)) {break;}
+        }
+        try {
+            return new PooledConnection(DriverManager.getConnection(url));
+        } catch(SQLException e) {
+            open.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.currentTimeMillis();
+        if(now - pc.created > maxLifetimeMillis) {return false;}
+        if(now - pc.lastUsed < validateAfterMillis) {return true;}
+        try {
+            return pc.con.isValid(2);
+        } catch(SQLException e) {
+            return false;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            if(!pc.con.getAutoCommit()) {//Never hand out a connection mid-transaction
+                pc.con.rollback();
+                pc.con.setAutoCommit(true);
+            }
+        } catch(SQLException e) {
+            discard(pc, false);
+            return;
+        }
+        pc.lastUsed = System.currentTimeMillis();
+        if(closed) {
+            discard(pc, false);
+        } else {
+            idle.offerFirst(pc);//Most recently used first, so spare connections age out instead of all going stale
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        active.decrementAndGet();
+        discard(pc, true);
+    }
+
+    private void discard(PooledConnection pc, boolean dead) {
+        open.decrementAndGet();
+        if(dead) {reconnects.incrementAndGet();}
+        try {
+            pc.con.close();
+        } catch(SQLException ignored) {}
+    }
+
+    private boolean isConnectionError(SQLException e) {
+        if(e instanceof SQLNonTransientConnectionException || e instanceof SQLRecoverableException) {return true;}
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08"); //SQLSTATE class 08: connection exception
+    }
+
+    public void close() {
+        closed = true;
+        PooledConnection pc;
+        while((pc = idle.pollFirst()) != null) {
+            discard(pc, false);
+        }
+        if(active.get() > 0) {
+            Main.getInstance().getLogger().warning("Closing database pool with "+active.get()+" connection(s) still in use.");
+        }
+    }
+
+    public List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("DB pool: "+active.get()+" active, "+idle.size()+" idle, "+open.get()+"/"+maxSize+" open");
+        stats.add("DB pool: "+borrows.get()+" borrows, "+waits.get()+" waits, "+reconnects.get()+" reconnects");
+        return stats;
+    }
+
+    private static class PooledConnection {
+        private final Connection con;
+        private final long created = System.currentTimeMillis();
+        private long lastUsed = created;
+
+        private PooledConnection(Connection con) {
+            this.con = con;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package minigame.io;
+
+import minigame.Main;
+import minigame.io.output.record.GameSnapshot;
+import minigame.util.GlobalSettings;
+import minigame.util.Misc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for finished games. The main thread only copies the GameRecord and offers it here;
+ * a single background thread drains the queue and writes several games per database transaction.
+ */
+public class GameSaveQueue {
+    private final InputOutputStrategy output;
+    private final BlockingQueue<GameSnapshot> queue;
+    private final int batchSize;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean stopped = false; //The writer thread has exited, so saves are written by the caller
+
+    //Backpressure metrics
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong backlogs = new AtomicLong(); //Times a game ended with the queue over capacity
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private volatile long lastBatchMillis;
+
+    public GameSaveQueue(InputOutputStrategy output) {
+        this.output = output;
+        this.queue = new LinkedBlockingQueue<>();//Unbounded, so ending a game never waits on the database
+        this.batchSize = GlobalSettings.getSaveBatchSize();
+        this.writer = new Thread(this::run, "Minigame-GameWriter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a finished game to be written. Never blocks; a queue past saveQueueCapacity only logs a warning, since
+     * it means the database is down or far behind.
+     * @param game Snapshot of the finished game
+     */
+    public void offer(GameSnapshot game) {
+        if(stopped) {//Only after flush() has seen the writer thread exit, so nothing else is using the output
+            Main.getInstance().getLogger().warning("Game saved after shutdown; writing it synchronously.");
+            write(Collections.singletonList(game));
+            return;
+        }
+        queue.add(game);
+        if(queue.size() > GlobalSettings.getSaveQueueCapacity()) {
+            backlogs.incrementAndGet();
+            Main.getInstance().getLogger().warning("Game save queue is over capacity ("+queue.size()+"), the database is falling behind!");
+        }
+        enqueued.incrementAndGet();
+        highWaterMark.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    private void run() {
+        List<GameSnapshot> batch = new ArrayList<>(batchSize);
+        while(running || !queue.isEmpty()) {
+            try {
+                GameSnapshot first = queue.poll(1, TimeUnit.SECONDS);
+                if(first == null) {continue;}
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch(InterruptedException e) {
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch in a single transaction. If that fails, each game is retried on its own so that one
+     * bad record cannot take the rest of the batch down with it.
+     * @param batch Games to write
+     */
+    private void write(List<GameSnapshot> batch) {
+        long start = System.nanoTime();
+        try {
+            output.saveGames(batch);
+            written.addAndGet(batch.size());
+        } catch(Exception e) {
+            if(batch.size() == 1) {
+                failed.incrementAndGet();
+                Main.getInstance().getLogger().severe("CRITICAL: Failed to save "+batch.get(0).getGameType()+" game: "+Misc.getError(e));
+            } else {
+                for(GameSnapshot game : batch) {
+                    write(Collections.singletonList(game));
+                }
+                return;
+            }
+        }
+        batches.incrementAndGet();
+        lastBatchMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Stops accepting new work and blocks until every queued game has been written (or the timeout passes)
+     */
+    public void flush() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(GlobalSettings.getSaveFlushTimeoutSeconds()));
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(writer.isAlive()) {
+            Main.getInstance().getLogger().severe("CRITICAL: Timed out flushing game saves, "+queue.size()+" game(s) were not written!");
+            return;
+        }
+        stopped = true;
+        List<GameSnapshot> left = new ArrayList<>();
+        queue.drainTo(left);
+        if(!left.isEmpty()) {write(left);}//The writer is gone, so these can only be written here
+    }
+
+    public List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Game saves: "+written.get()+"/"+enqueued.get()+" written, "+failed.get()+" failed, "+batches.get()+" batches");
+        stats.add("Save queue: "+queue.size()+" waiting (peak "+highWaterMark.get()+"/"+GlobalSettings.getSaveQueueCapacity()+
+                "), over capacity "+backlogs.get()+" times, last batch "+lastBatchMillis+"ms");
+        return stats;
+    }
+}
@@ -2,16 +2,38 @@ package minigame.io;
 
 import lombok.Getter;
 import minigame.Main;
+import minigame.io.output.record.GameSnapshot;
 import minigame.player.PlayerData;
+import minigame.util.GlobalSettings;
 import org.bukkit.Bukkit;
-import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class InputOutputManager {
     @Getter private static InputOutputStrategy output;
+    @Getter private static GameSaveQueue saveQueue;
+    @Getter private static ReplayWriter replayWriter;
+    private static ExecutorService profileWorkers;//Player profile loads/saves, never run on the main thread
 
     public static void enable() {//TODO with settings
         try {
             output = new SQLInputOutputStrategy();
+            saveQueue = new GameSaveQueue(output);
+            replayWriter = new ReplayWriter();
+            AtomicInteger threadCount = new AtomicInteger();
+            profileWorkers = Executors.newFixedThreadPool(GlobalSettings.getProfileWorkerThreads(), r -> {
+                Thread t = new Thread(r, "Minigame-ProfileWorker-"+threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
         } catch(Exception e) {
             e.printStackTrace();
             Main.getInstance().getLogger().severe("CRITICAL: Unable to instantiate plugin I/O! Disabling plugin.");
@@ -19,11 +41,60 @@ public class InputOutputManager {
         }
     }
 
-    public static void savePlayer(Player p, PlayerData pd) {
-        output.savePlayer(p, pd);
+    //Writes out every game and profile still waiting to be saved. Blocks, so only call on shutdown.
+    public static void disable() {
+        if(saveQueue != null) {
+            saveQueue.flush();
+        }
+        if(replayWriter != null) {
+            replayWriter.flush();
+        }
+        if(profileWorkers != null) {
+            profileWorkers.shutdown();
+            try {
+                if(!profileWorkers.awaitTermination(GlobalSettings.getSaveFlushTimeoutSeconds(), TimeUnit.SECONDS)) {
+                    Main.getInstance().getLogger().severe("CRITICAL: Timed out waiting for player profiles to save!");
+                }
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if(output != null) {
+            output.close();
+        }
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>(saveQueue.getStats());
+        stats.addAll(replayWriter.getStats());
+        stats.addAll(output.getStats());
+        return stats;
+    }
+
+    public static void saveGame(GameSnapshot game) {
+        saveQueue.offer(game);
+    }
+
+    public static CompletableFuture<Void> savePlayerAsync(UUID uuid, String name, PlayerData pd) {
+        return CompletableFuture.runAsync(() -> output.savePlayer(uuid, name, pd), profileWorkers);
+    }
+
+    public static CompletableFuture<Integer> loadPlayerAsync(UUID uuid, String name, PlayerData pd) {
+        return CompletableFuture.supplyAsync(() -> output.loadPlayer(uuid, name, pd), profileWorkers);
+    }
+
+    public static CompletableFuture<Integer> rebuildRatingsAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return output.rebuildRatings();
+            } catch(Exception e) {
+                throw new CompletionException(e);
+            }
+        }, profileWorkers);
     }
 
-    public static int loadPlayer(Player p, PlayerData pd) {
-        return output.loadPlayer(p, pd);
+    //Blocking load, for callers that are already off the main thread (e.g. AsyncPlayerPreLoginEvent)
+    public static int loadPlayer(UUID uuid, String name, PlayerData pd) {
+        return output.loadPlayer(uuid, name, pd);
     }
 }
@@ -1,11 +1,17 @@
 package minigame.io;
 
-import minigame.io.output.record.GameRecord;
+import minigame.io.output.record.GameSnapshot;
 import minigame.player.PlayerData;
-import org.bukkit.entity.Player;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
 
 public interface InputOutputStrategy {
-    void saveGame(GameRecord game) throws Exception;
-    void savePlayer(Player p, PlayerData pd);
-    int loadPlayer(Player p, PlayerData pd);
+    void saveGames(List<GameSnapshot> games) throws Exception;//Called off the main thread; all games in one transaction
+    void savePlayer(UUID uuid, String name, PlayerData pd);//Called off the main thread
+    int loadPlayer(UUID uuid, String name, PlayerData pd);//Called off the main thread; returns past logins, or -1 on failure
+    int rebuildRatings() throws Exception;//Recomputes every Player's rating from game history; slow, off the main thread
+    default List<String> getStats() {return Collections.emptyList();}
+    default void close() {}
 }
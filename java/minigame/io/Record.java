@@ -1,47 +1,103 @@
 package minigame.io;
 
 import lombok.Getter;
-import minigame.util.Misc;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Stats logged during one round (or by one Player during one round). Values are kept in primitive arrays indexed by
+ * StatSchema slot, so logging an event is an array write rather than a map lookup and a boxed Number.
+ */
 public class Record {
-    @Getter private final HashMap<String, Object> data = new HashMap<>();
-
-    public void overwrite(String field, Object toPut) {
-        data.remove(field);
-        if(toPut instanceof Duration) {
-            toPut = new Long(((Duration)toPut).getSeconds());
-        } else if(toPut instanceof Instant) {
-            toPut = new Long(((Instant) toPut).getEpochSecond());
+    @Getter private final StatSchema schema;
+    private final long[] longs; //BOOLEAN, INT and BIGINT slots; Durations are stored as seconds
+    private final double[] doubles; //DOUBLE slots, null if the schema has none
+    private final String[] strings; //STRING and TEXT slots, null if the schema has none
+    private long logged; //Bit per slot, set once the slot has been given a value
+
+    public Record(StatSchema schema) {
+        this.schema = schema;
+        this.longs = new long[schema.size()];
+        this.doubles = schema.isDecimal() ? new double[schema.size()] : null;
+        this.strings = schema.isText() ? new String[schema.size()] : null;
+    }
+
+    public void overwrite(int slot, long value) {
+        if(schema.getType(slot).isDecimal()) {
+            doubles[slot] = value;
+        } else {
+            longs[slot] = value;
         }
-        data.put(field, toPut);
+        logged |= 1L << slot;
     }
 
-    /**
-     * Adds the new Number to the old while preserving the amount of bits required to store it :( not pretty though
-     * @param field
-     * @param toAdd
-     */
-    public void add(String field, Number toAdd) {
-        if(!data.containsKey(field)) {data.put(field, toAdd); return;}
-        Number orig = (Number)data.remove(field);
-        data.put(field, Misc.add(orig, toAdd));
+    public void overwrite(int slot, double value) {
+        doubles[slot] = value;
+        logged |= 1L << slot;
+    }
+
+    public void overwrite(int slot, boolean value) {
+        overwrite(slot, value ? 1L : 0L);
+    }
+
+    public void overwrite(int slot, String value) {
+        strings[slot] = value;
+        logged |= 1L << slot;
+    }
 
+    public void add(int slot, long toAdd) {
+        if(schema.getType(slot).isDecimal()) {
+            doubles[slot] += toAdd;
+        } else {
+            longs[slot] += toAdd;
+        }
+        logged |= 1L << slot;
+    }
+
+    public void add(int slot, double toAdd) {
+        doubles[slot] += toAdd;
+        logged |= 1L << slot;
+    }
+
+    //Appends to a String stat, e.g. a move list
+    public void add(int slot, String toAdd) {
+        strings[slot] = strings[slot] == null ? toAdd : strings[slot] + toAdd;
+        logged |= 1L << slot;
     }
 
-    public void add(String field, Duration toAdd) {
-        add(field, toAdd.getSeconds());
+    public boolean isLogged(int slot) {
+        return (logged & (1L << slot)) != 0;
     }
 
-    public void add(String field, String toAdd) {
-        if(!data.containsKey(field)) {data.put(field, toAdd); return;}
-        data.put(field, data.remove(field)+toAdd);
+    public boolean isEmpty() {
+        return logged == 0;
     }
 
-    public void subtract(String field, Duration toSubtract) {
-        add(field, -toSubtract.getSeconds());
+    //Numeric value of a slot, whichever array it lives in
+    public double getNumber(int slot) {
+        return schema.getType(slot).isDecimal() ? doubles[slot] : longs[slot];
+    }
+
+    /**
+     * Boxes every logged stat into a name->value map. Only done once per record, when the game is saved.
+     * @return Stat name to Boolean, Integer, Long, Double or String
+     */
+    public Map<String, Object> toMap() {
+        List<StatColumn> columns = schema.getColumns();
+        Map<String, Object> data = new HashMap<>();
+        for(int slot = 0; slot < columns.size(); slot++) {
+            if(!isLogged(slot)) {continue;}
+            StatColumn column = columns.get(slot);
+            switch(column.getType()) {
+                case BOOLEAN: data.put(column.getName(), longs[slot] != 0); break;
+                case INT: data.put(column.getName(), (int) longs[slot]); break;
+                case BIGINT: data.put(column.getName(), longs[slot]); break;
+                case DOUBLE: data.put(column.getName(), doubles[slot]); break;
+                default: data.put(column.getName(), strings[slot]);
+            }
+        }
+        return data;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package minigame.io;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Value;
+import minigame.util.GlobalSettings;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A ReplayLog read back from disk. A log cut short (the server stopped mid-game) is read up to its last whole event.
+ */
+@Getter
+public class ReplayFile {
+    private final String gameType;
+    private final String regionID;
+    private final long startMillis;
+    private final int minX, minY, minZ;
+    private final List<String> players = new ArrayList<>();//Name of player index i + 1
+    private final List<String> teams = new ArrayList<>();
+    private final List<String> palette = new ArrayList<>();
+    private final List<Event> events = new ArrayList<>();//Every event but PLAYER and PALETTE, in order
+    private String winningTeam = null;//Null if the log never ended
+    private long lengthTicks = 0;
+
+    @Getter(AccessLevel.NONE) private final byte[] data;
+    @Getter(AccessLevel.NONE) private int pos = 0;
+
+    private ReplayFile(byte[] data) throws IOException {
+        this.data = data;
+        if(data.length < ReplayLog.MAGIC.length || !Arrays.equals(Arrays.copyOf(data, ReplayLog.MAGIC.length), ReplayLog.MAGIC)) {
+            throw new IOException("Not a replay file");
+        }
+        pos = ReplayLog.MAGIC.length;
+        int version = (int) readVarLong();
+        if(version != ReplayLog.VERSION) {throw new IOException("Unsupported replay version "+version);}
+        gameType = readString();
+        regionID = readString();
+        startMillis = readVarLong();
+        minX = (int) readZigzag();
+        minY = (int) readZigzag();
+        minZ = (int) readZigzag();
+        try {
+            readEvents();
+        } catch(EOFException e) {
+            //Cut short; keep everything before the partial event
+        }
+    }
+
+    public static ReplayFile read(File file) throws IOException {
+        return new ReplayFile(Files.readAllBytes(file.toPath()));
+    }
+
+    //The replay of that name in the replay directory, or null if there isn't one. Never anything outside it.
+    public static File find(String name) {
+        if(name.contains("/") || name.contains("\\") || name.contains("..")) {return null;}
+        File file = new File(GlobalSettings.getReplayDirectory(), name.endsWith(".replay") ? name : name+".replay");
+        return file.isFile() ? file : null;
+    }
+
+    //Names of the most recently written replays, newest first
+    public static List<String> list(int max) {
+        File[] files = new File(GlobalSettings.getReplayDirectory()).listFiles((dir, name) -> name.endsWith(".replay"));
+        List<String> names = new ArrayList<>();
+        if(files == null) {return names;}
+        Arrays.sort(files, (a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        for(int i = 0; i < Math.min(max, files.length); i++) {
+            names.add(files[i].getName().substring(0, files[i].getName().length() - ".replay".length()));
+        }
+        return names;
+    }
+
+    public String getPlayerName(int index) {
+        return index <= 0 || index > players.size() ? "nobody" : players.get(index - 1);
+    }
+
+    private void readEvents() throws EOFException {
+        long tick = 0;
+        while(pos < data.length) {
+            int type = readByte();
+            tick += readVarLong();
+            switch(type) {
+                case ReplayLog.PLAYER:
+                    readLong();
+                    readLong();//UUID, not needed to replay
+                    players.add(readString());
+                    teams.add(readString());
+                    break;
+                case ReplayLog.PALETTE:
+                    palette.add(readString());
+                    break;
+                case ReplayLog.BLOCK:
+                    int x = (int) readZigzag(), y = (int) readZigzag(), z = (int) readZigzag();
+                    events.add(new Event(type, tick, x, y, z, (int) readVarLong(), 0, 0, 0));
+                    break;
+                case ReplayLog.MOVE:
+                    int mover = (int) readVarLong();
+                    events.add(new Event(type, tick, 0, 0, 0, 0, mover, 0, readZigzag()));
+                    break;
+                case ReplayLog.TAG:
+                    int tagger = (int) readVarLong();
+                    events.add(new Event(type, tick, 0, 0, 0, 0, tagger, (int) readVarLong(), 0));
+                    break;
+                case ReplayLog.HIT:
+                    int attacker = (int) readVarLong(), victim = (int) readVarLong();
+                    events.add(new Event(type, tick, 0, 0, 0, 0, attacker, victim, readVarLong()));
+                    break;
+                case ReplayLog.END:
+                    winningTeam = readString();
+                    break;
+                default:
+                    throw new EOFException("Unknown event "+type);//Can't find the next event without knowing this one's size
+            }
+            lengthTicks = tick;
+        }
+    }
+
+    private int readByte() throws EOFException {
+        if(pos >= data.length) {throw new EOFException();}
+        return data[pos++] & 0xFF;
+    }
+
+    private long readVarLong() throws EOFException {
+        long v = 0;
+        for(int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {return v;}
+        }
+        throw new EOFException("Malformed varint");
+    }
+
+    private long readZigzag() throws EOFException {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private long readLong() throws EOFException {
+        long v = 0;
+        for(int i = 0; i < 8; i++) {
+            v = (v << 8) | readByte();
+        }
+        return v;
+    }
+
+    private String readString() throws EOFException {
+        int length = (int) readVarLong();
+        if(length < 0 || pos + length > data.length) {throw new EOFException();}
+        String s = new String(data, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return s;
+    }
+
+    @Value
+    public static class Event {
+        int type; //ReplayLog event type
+        long tick; //Since the game started
+        int x, y, z, block; //BLOCK: position relative to the arena's minimum point, and palette index
+        int actor, target; //MOVE, TAG, HIT: player indexes (see getPlayerName)
+        long value; //MOVE: the move, HIT: damage in tenths
+    }
+}
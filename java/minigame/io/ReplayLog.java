@@ -0,0 +1,228 @@
+package minigame.io;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import minigame.util.GlobalSettings;
+import minigame.util.TimerWheel;
+import org.bukkit.block.data.BlockData;
+import org.bukkit.entity.Player;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Append-only binary log of everything that happens in one game, so it can be replayed later by ReplayViewer.
+ * Events are varint-encoded into a buffer on the main thread - a few array writes each - and whole chunks of the
+ * buffer are handed to the ReplayWriter thread, which appends them to the game's file.
+ *
+ * Format: the header (see ReplayFile), then events of [type byte][ticks since the previous event][payload].
+ * Players and block states are written out in full the first time they appear, and referred to by index after that.
+ * Player indexes start at 1; 0 is "nobody" (the computer, a random tag, a mob).
+ */
+public class ReplayLog {
+    static final byte[] MAGIC = {'M', 'G', 'R', 'P'};
+    static final int VERSION = 1;
+
+    public static final int PLAYER = 1;  //uuid (2 fixed longs), name, team
+    public static final int PALETTE = 2; //block state string
+    public static final int BLOCK = 3;   //x, y, z relative to the arena's minimum point, palette index
+    public static final int MOVE = 4;    //player, game-specific move
+    public static final int TAG = 5;     //tagger, tagged
+    public static final int HIT = 6;     //attacker, victim, damage in tenths
+    public static final int END = 7;     //winning team
+
+    private static final int MAX_HEADER = 11; //Type byte and the largest tick delta
+
+    private final ReplayWriter writer;
+    private final File file;
+    private final int minX, minY, minZ;
+    private final HashMap<UUID, Integer> players = new HashMap<>();
+    private final HashMap<Object, Integer> palette = new HashMap<>();//WorldEdit BlockStates & Bukkit BlockData, both immutable
+    private byte[] buf;
+    private int pos = 0;
+    private long lastTick;
+    private boolean closed = false;
+
+    /**
+     * @param writer Writes the log out, or null to keep nothing (e.g. for benchmarks)
+     * @param min The arena's minimum point, which block positions are stored relative to
+     */
+    public ReplayLog(@Nullable ReplayWriter writer, File file, String gameType, String regionID, BlockVector3 min) {
+        this.writer = writer;
+        this.file = file;
+        this.minX = min.getX();
+        this.minY = min.getY();
+        this.minZ = min.getZ();
+        this.buf = new byte[GlobalSettings.getReplayChunkBytes()];
+        this.lastTick = TimerWheel.getTick();
+
+        System.arraycopy(MAGIC, 0, buf, 0, MAGIC.length);
+        pos = MAGIC.length;
+        writeVarLong(VERSION);
+        writeString(gameType.getBytes(StandardCharsets.UTF_8));
+        writeString(regionID.getBytes(StandardCharsets.UTF_8));
+        writeVarLong(System.currentTimeMillis());
+        writeVarLong(zigzag(minX));
+        writeVarLong(zigzag(minY));
+        writeVarLong(zigzag(minZ));
+    }
+
+    public void addPlayer(Player p, String team) {
+        if(closed || players.containsKey(p.getUniqueId())) {return;}
+        players.put(p.getUniqueId(), players.size() + 1);
+        byte[] name = p.getName().getBytes(StandardCharsets.UTF_8);
+        byte[] teamName = team.getBytes(StandardCharsets.UTF_8);
+        begin(PLAYER, 16 + 10 + name.length + 10 + teamName.length);
+        writeLong(p.getUniqueId().getMostSignificantBits());
+        writeLong(p.getUniqueId().getLeastSignificantBits());
+        writeString(name);
+        writeString(teamName);
+    }
+
+    //A block the game changed through WorldEdit
+    public void block(int x, int y, int z, BlockState state) {
+        if(closed) {return;}
+        logBlock(x, y, z, state);
+    }
+
+    //A block changed in the world directly, e.g. by a Player
+    public void block(int x, int y, int z, BlockData state) {
+        if(closed) {return;}
+        logBlock(x, y, z, state);
+    }
+
+    private void logBlock(int x, int y, int z, Object state) {
+        Integer id = palette.get(state);
+        if(id == null) {
+            id = palette.size();
+            palette.put(state, id);
+            String name = state instanceof BlockData ? ((BlockData) state).getAsString() : ((BlockState) state).getAsString();
+            byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+            begin(PALETTE, 10 + utf8.length);
+            writeString(utf8);
+        }
+        begin(BLOCK, 40);
+        writeVarLong(zigzag(x - minX));
+        writeVarLong(zigzag(y - minY));
+        writeVarLong(zigzag(z - minZ));
+        writeVarLong(id);
+    }
+
+    //A move in a turn-based game, encoded however that game encodes its moves
+    public void move(@Nullable Player p, long move) {
+        if(closed) {return;}
+        begin(MOVE, 15);
+        writeVarLong(index(p));
+        writeVarLong(zigzag(move));
+    }
+
+    public void tag(@Nullable Player tagger, @Nullable Player tagged) {
+        if(closed) {return;}
+        begin(TAG, 10);
+        writeVarLong(index(tagger));
+        writeVarLong(index(tagged));
+    }
+
+    public void hit(@Nullable Player attacker, @Nullable Player victim, double damage) {
+        if(closed) {return;}
+        begin(HIT, 15);
+        writeVarLong(index(attacker));
+        writeVarLong(index(victim));
+        writeVarLong(Math.max(0, Math.round(damage * 10)));
+    }
+
+    //Ends the log, which is then written out in full
+    public void end(String winningTeam) {
+        if(closed) {return;}
+        byte[] team = winningTeam.getBytes(StandardCharsets.UTF_8);
+        begin(END, 10 + team.length);
+        writeString(team);
+        closed = true;
+        ship(true);
+    }
+
+    /**
+     * Times logging a mix of block changes, moves and hits into a log that isn't written anywhere
+     * @return Lines describing the results
+     */
+    public static List<String> benchmark(int events) {
+        BlockState[] states = {BlockTypes.STONE.getDefaultState(), BlockTypes.AIR.getDefaultState(),
+                BlockTypes.RED_WOOL.getDefaultState(), BlockTypes.BLUE_WOOL.getDefaultState()};
+        ReplayLog log = new ReplayLog(null, null, "BENCHMARK", "benchmark", BlockVector3.ZERO);
+        long start = System.nanoTime();
+        for(int i = 0; i < events; i++) {
+            if((i & 7) == 0) {
+                log.move(null, i);
+            } else if((i & 7) == 1) {
+                log.hit(null, null, 2.5);
+            } else {
+                log.block(i & 63, 64 + (i & 15), (i >> 6) & 63, states[i & 3]);
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        List<String> results = new ArrayList<>();
+        results.add("Replay log benchmark: "+events+" events at "+(nanos / Math.max(1, events))+"ns each");
+        return results;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private int index(@Nullable Player p) {
+        if(p == null) {return 0;}
+        Integer index = players.get(p.getUniqueId());
+        return index == null ? 0 : index;
+    }
+
+    //Starts an event of at most maxBytes (after the header), shipping the buffer first if the event wouldn't fit
+    private void begin(int type, int maxBytes) {
+        if(pos + MAX_HEADER + maxBytes > buf.length) {
+            ship(false);
+            if(MAX_HEADER + maxBytes > buf.length) {buf = new byte[MAX_HEADER + maxBytes];}
+        }
+        long now = TimerWheel.getTick();
+        buf[pos++] = (byte) type;
+        writeVarLong(now - lastTick);
+        lastTick = now;
+    }
+
+    //Hands the buffer over to the writer thread and starts a new one
+    private void ship(boolean last) {
+        if(writer != null && (pos > 0 || last)) {
+            writer.append(file, buf, pos, last);
+            if(!last) {buf = new byte[buf.length];}
+        }
+        pos = 0;
+    }
+
+    private void writeVarLong(long v) {
+        while((v & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buf[pos++] = (byte) v;
+    }
+
+    private void writeLong(long v) {
+        for(int shift = 56; shift >= 0; shift -= 8) {
+            buf[pos++] = (byte) (v >>> shift);
+        }
+    }
+
+    private void writeString(byte[] utf8) {
+        writeVarLong(utf8.length);
+        System.arraycopy(utf8, 0, buf, pos, utf8.length);
+        pos += utf8.length;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+}
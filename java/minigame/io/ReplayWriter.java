@@ -0,0 +1,142 @@
+package minigame.io;
+
+import lombok.AllArgsConstructor;
+import minigame.Main;
+import minigame.util.GlobalSettings;
+import minigame.util.Misc;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends ReplayLog chunks to their files on a single background thread, so logging a game never waits on the disk.
+ * Each game's file stays open until its last chunk arrives.
+ */
+public class ReplayWriter {
+    private final BlockingQueue<Chunk> queue = new LinkedBlockingQueue<>();//Unbounded; a chunk is only a few KB
+    private final Map<File, OutputStream> open = new HashMap<>();//Only touched by the writer thread
+    private final Thread writer;
+    private volatile boolean running = true;
+    private volatile boolean stopped = false; //The writer thread has exited, so chunks are written by the caller
+
+    //Metrics
+    private final AtomicLong chunks = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong replays = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicInteger openFiles = new AtomicInteger();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+
+    public ReplayWriter() {
+        File dir = new File(GlobalSettings.getReplayDirectory());
+        if(!dir.isDirectory() && !dir.mkdirs()) {
+            Main.getInstance().getLogger().severe("Unable to create the replay directory "+dir.getPath());
+        }
+        this.writer = new Thread(this::run, "Minigame-ReplayWriter");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    //Queues the first length bytes of data to be appended to file. The caller must not touch data afterwards.
+    void append(File file, byte[] data, int length, boolean last) {
+        if(stopped) {//Only after flush() has seen the writer thread exit, so nothing else is using the open files
+            write(new Chunk(file, data, length, last));
+            return;
+        }
+        if(!running) {//Flushing timed out and the writer may still be running
+            dropped.incrementAndGet();
+            Main.getInstance().getLogger().warning("Dropped a replay chunk of "+file.getName()+" written after shutdown.");
+            return;
+        }
+        queue.add(new Chunk(file, data, length, last));
+        highWaterMark.accumulateAndGet(queue.size(), Math::max);
+    }
+
+    private void run() {
+        while(running || !queue.isEmpty()) {
+            try {
+                Chunk chunk = queue.poll(1, TimeUnit.SECONDS);
+                if(chunk != null) {write(chunk);}
+            } catch(InterruptedException e) {
+                break;
+            }
+        }
+        for(OutputStream out : open.values()) {//Games still running at shutdown keep what was written so far
+            try {
+                out.close();
+            } catch(IOException ignored) {}
+        }
+        open.clear();
+        openFiles.set(0);
+    }
+
+    private void write(Chunk chunk) {
+        try {
+            OutputStream out = open.get(chunk.file);
+            if(out == null) {
+                out = new FileOutputStream(chunk.file, true);
+                open.put(chunk.file, out);
+                openFiles.incrementAndGet();
+            }
+            out.write(chunk.data, 0, chunk.length);
+            chunks.incrementAndGet();
+            bytes.addAndGet(chunk.length);
+            if(chunk.last) {
+                open.remove(chunk.file).close();
+                openFiles.decrementAndGet();
+                replays.incrementAndGet();
+            }
+        } catch(IOException e) {
+            failed.incrementAndGet();
+            Main.getInstance().getLogger().severe("Failed to write replay "+chunk.file.getName()+": "+Misc.getError(e));
+        }
+    }
+
+    /**
+     * Stops accepting new work and blocks until every queued chunk has been written (or the timeout passes)
+     */
+    public void flush() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(GlobalSettings.getSaveFlushTimeoutSeconds()));
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if(writer.isAlive()) {
+            Main.getInstance().getLogger().severe("Timed out flushing replays, "+queue.size()+" chunk(s) were not written!");
+            return;
+        }
+        stopped = true;
+        for(Chunk chunk; (chunk = queue.poll()) != null;) {//The writer is gone, so these can only be written here
+            write(chunk);
+        }
+    }
+
+    public List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Replays: "+replays.get()+" finished, "+openFiles.get()+" open, "+bytes.get()/1024+"KB in "+chunks.get()+
+                " chunks, "+failed.get()+" failed writes, "+dropped.get()+" dropped chunks");
+        stats.add("Replay queue: "+queue.size()+" waiting (peak "+highWaterMark.get()+")");
+        return stats;
+    }
+
+    @AllArgsConstructor
+    private static class Chunk {
+        private final File file;
+        private final byte[] data;
+        private final int length;
+        private final boolean last;
+    }
+}
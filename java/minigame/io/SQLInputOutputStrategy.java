@@ -5,7 +5,6 @@ import minigame.game.MinigameSettings;
 import minigame.io.output.record.*;
 import minigame.player.PlayerData;
 import minigame.util.GlobalSettings;
-import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -15,47 +14,60 @@ import java.sql.*;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SQLInputOutputStrategy implements InputOutputStrategy {
-    private final Connection con;
-    private final HashMap<String, Set<String>> knownColumns = new HashMap<>();
+    //Hot statements are kept as constants so the driver's per-connection statement cache can reuse them
+    private static final String SAVE_PLAYER_SQL = "INSERT INTO minigame_player " +
+            "(player_uuid, player_name, player_tokens, player_tickets, player_pass_expiration) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "player_name=VALUES(player_name), player_tokens=VALUES(player_tokens), " +
+            "player_tickets=VALUES(player_tickets), player_pass_expiration=VALUES(player_pass_expiration)";
+    private static final String SAVE_SESSION_SQL = "INSERT INTO minigame_player_session " +
+            "(session_player_uuid, session_duration, session_tokens_spent, session_tickets_earned, " +
+            "session_tickets_spent, session_tokens_earned, session_messages_sent) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    //One row per rated game type (or one row of NULL ratings), all from primary key lookups
+    private static final String LOAD_PLAYER_SQL = "SELECT player_tickets, player_tokens, player_pass_expiration, " +
+            "(SELECT COUNT(session_player_uuid) FROM minigame_player_session WHERE session_player_uuid = minigame_player.player_uuid) AS player_logins, " +
+            "game_type, rating, wins, high_score " +
+            "FROM minigame_player LEFT JOIN minigame_player_rating ON minigame_player_rating.player_uuid = minigame_player.player_uuid " +
+            "WHERE minigame_player.player_uuid = ?";
+    private static final String INSERT_PLAYER_SQL = "INSERT INTO minigame_player (player_uuid, player_name) VALUES (?, ?)";
+    private static final String INSERT_GAME_SQL = "INSERT INTO minigame_game (game_type, game_winning_team) VALUES (?, ?)";
+    private static final String INSERT_PLAYER_MAP_SQL =
+            "INSERT INTO minigame_player_map (player_uuid, game_id, team_name, player_elo_change) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_RATING_SQL = "INSERT INTO minigame_player_rating " +
+            "(player_uuid, game_type, rating, wins, high_score) VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+            "rating=rating+VALUES(rating), wins=wins+VALUES(wins), high_score=";
+    private static final String UPDATE_RATING_MAX_SQL = UPDATE_RATING_SQL + "GREATEST(high_score, VALUES(high_score))";
+    private static final String UPDATE_RATING_SUM_SQL = UPDATE_RATING_SQL + "high_score+VALUES(high_score)";
+    private static final String SAVE_SCHEMA_SQL = "INSERT INTO minigame_schema (schema_table, schema_hash) VALUES (?, ?) " +
+            "ON DUPLICATE KEY UPDATE schema_hash=VALUES(schema_hash), schema_migrated=NOW()";
+    //Bump whenever the fixed (non-stat) columns of the round tables change, so every table is re-checked
+    private static final int STAT_SCHEMA_VERSION = 1;
+    private static final StatColumn PLAYER_UUID = StatColumn.player("player_uuid", StatType.STRING, false);
+
+    private final ConnectionPool pool;
+    private final Set<String> warnedStats = ConcurrentHashMap.newKeySet();//Undeclared stats we've already complained about
+    private final Object ratingLock = new Object();//Keeps game saves from interleaving with a rating rebuild
 
     public SQLInputOutputStrategy() throws SQLException {
-        //Establish a connection
-        con = DriverManager.getConnection(
-                "jdbc:mysql://" + GlobalSettings.getDatabaseAddress() +
-                "/" + GlobalSettings.getDatabaseName() +
-                "?user=" + GlobalSettings.getDatabaseUsername() +
-                "&password=" + GlobalSettings.getDatabasePassword() +
-                "&allowMultiQueries=true");
+        pool = new ConnectionPool(getUrl(), GlobalSettings.getDatabasePoolSize(), GlobalSettings.getDatabaseTimeoutSeconds(),
+                GlobalSettings.getDatabaseValidateAfterSeconds(), GlobalSettings.getDatabaseMaxLifetimeMinutes());
+        pool.execute(con -> {
+            createTables(con);
+            return null;
+        });
+    }
 
-        //Index current tables & columns for better fluidity
+    private void createTables(Connection con) throws SQLException {
+        //Only used to tell whether the rating table is new; nothing past startup looks at INFORMATION_SCHEMA
+        boolean hasRatingTable;
         try(PreparedStatement stm = con.prepareStatement(
-                "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES " +
-                        "WHERE TABLE_SCHEMA = '"+GlobalSettings.getDatabaseName()+"' "+
-                            "AND TABLE_NAME LIKE '"+GlobalSettings.getDatabaseTablePrefix()+"%'")) {
-
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? AND TABLE_NAME = 'minigame_player_rating'")) {
+            stm.setString(1, GlobalSettings.getDatabaseName());
             ResultSet rs = stm.executeQuery();
-            while(rs.next()) {
-                String tableName = rs.getString("TABLE_NAME");
-                if (tableName.startsWith(GlobalSettings.getDatabaseTablePrefix())) {
-                    knownColumns.put(tableName, new HashSet<>());
-                }
-            }
-        }
-
-        for(String tableName : knownColumns.keySet()) {
-            try(PreparedStatement stm = con.prepareStatement(
-                "  SELECT COLUMN_NAME " +
-                    "  FROM INFORMATION_SCHEMA.COLUMNS " +
-                    "  WHERE TABLE_SCHEMA = '"+GlobalSettings.getDatabaseName()+"'"+
-                        " AND TABLE_NAME = '"+tableName+"'")) {
-
-                ResultSet rs = stm.executeQuery();
-                while(rs.next()) {
-                    knownColumns.get(tableName).add(rs.getString("COLUMN_NAME"));
-                }
-            }
+            hasRatingTable = rs.next() && rs.getInt(1) > 0;
         }
 
         //Create basic tables if they don't exist
@@ -90,170 +102,339 @@ public class SQLInputOutputStrategy implements InputOutputStrategy {
                         "FOREIGN KEY (game_id) REFERENCES minigame_game (game_id) ON DELETE CASCADE)")) {
             stm.executeUpdate();
         }
-    }
 
-    private void prepareTable(List<Record> records, String gameType, String tableSuffix) throws SQLException {
-        HashMap<String, Object> newColumns = new HashMap<>();
-        String tableName = getTableName(gameType, tableSuffix);
-        Set<String> oldTable = knownColumns.get(tableName);
-
-        String columnName;
-        for (Record record : records) {
-            for (Map.Entry<String, Object> entry : record.getData().entrySet()) {
-                columnName = getColumnName(tableSuffix, entry.getKey());
-                if (oldTable == null || !oldTable.contains(columnName)) {
-                    newColumns.put(columnName, entry.getValue());
-                }
-            }
+        //Running totals per player & game type, so logging in never has to scan game history
+        if(!hasRatingTable) {
+            Main.getInstance().getLogger().warning("Created minigame_player_rating. If this server has played games before, " +
+                    "run /rebuildratings once to fill it from the game history.");
+        }
+        try(PreparedStatement stm = con.prepareStatement(
+                "CREATE TABLE IF NOT EXISTS minigame_player_rating " +
+                        "(player_uuid VARCHAR(36), game_type VARCHAR(36), " +
+                        "rating DOUBLE PRECISION NOT NULL DEFAULT 0, " + //Elo gained or lost relative to the starting Elo
+                        "wins INT NOT NULL DEFAULT 0, high_score DOUBLE PRECISION NOT NULL DEFAULT 0, " +
+                        "PRIMARY KEY (player_uuid, game_type), " +
+                        "FOREIGN KEY (player_uuid) REFERENCES minigame_player (player_uuid) ON DELETE CASCADE)")) {
+            stm.executeUpdate();
         }
 
-        if(newColumns.isEmpty()) {return;} //No new columns to add
-
-        //Add the columns we're about to create into our "known columns" collection
-        HashSet<String> columns = new HashSet<>(newColumns.keySet());
-        knownColumns.put(tableName, columns);
-
-        if(oldTable == null) {
-            StringBuilder columnsSQL = new StringBuilder("CREATE TABLE IF NOT EXISTS ").append(tableName).append('(');
-            if(tableSuffix.equals("round")) {
-                    columnsSQL.append(
-                        "round_id  INT AUTO_INCREMENT PRIMARY KEY, round_game_id INT, " +
-                        "FOREIGN KEY (round_game_id) REFERENCES minigame_game (game_id) ON DELETE CASCADE,"
-                    );
-                    columns.add("round_id"); columns.add("round_game_id");
-            } else if(tableSuffix.equals("round_player")) {
-                columnsSQL.append(
-                        "round_player_id  INT AUTO_INCREMENT PRIMARY KEY, round_player_round_id INT, " +
-                        "FOREIGN KEY (round_player_round_id) REFERENCES minigame_"+gameType+"_round (round_id) ON DELETE CASCADE,"
-                );
+        try(PreparedStatement stm = con.prepareStatement(
+                "CREATE TABLE IF NOT EXISTS minigame_schema " +
+                        "(schema_table VARCHAR(64) PRIMARY KEY, schema_hash VARCHAR(16) NOT NULL, " +
+                        "schema_migrated TIMESTAMP DEFAULT NOW())")) {
+            stm.executeUpdate();
+        }
+        migrateStatTables(con);
+    }
+
+    /**
+     * Brings every Minigame's round & round_player tables in line with the stats declared in MinigameSettings.
+     * Tables whose declared schema hasn't changed since the last migration are skipped without being inspected.
+     */
+    private void migrateStatTables(Connection con) throws SQLException {
+        Map<String, String> migrated = new HashMap<>();
+        try(PreparedStatement stm = con.prepareStatement("SELECT schema_table, schema_hash FROM minigame_schema")) {
+            ResultSet rs = stm.executeQuery();
+            while(rs.next()) {
+                migrated.put(rs.getString("schema_table"), rs.getString("schema_hash"));
             }
+        }
 
+        for(MinigameSettings game : MinigameSettings.values()) {
+            String roundTable = getTableName(game.name(), "round");
+            migrateStatTable(con, migrated, roundTable, "round",
+                    "round_id INT AUTO_INCREMENT PRIMARY KEY, round_game_id INT, " +
+                    "FOREIGN KEY (round_game_id) REFERENCES minigame_game (game_id) ON DELETE CASCADE",
+                    getStatColumns(game, false));
+            migrateStatTable(con, migrated, getTableName(game.name(), "round_player"), "round_player",
+                    "round_player_id INT AUTO_INCREMENT PRIMARY KEY, round_player_round_id INT, " +
+                    "FOREIGN KEY (round_player_round_id) REFERENCES "+roundTable+" (round_id) ON DELETE CASCADE",
+                    getStatColumns(game, true));
+        }
+    }
 
-            for(Map.Entry<String, Object> c : newColumns.entrySet()) {
-                columnsSQL.append(c.getKey()).append(" ").append(getDataType(c.getValue())).append(",");
-            }
+    private void migrateStatTable(Connection con, Map<String, String> migrated, String tableName, String tableSuffix,
+                                  String fixedColumns, List<StatColumn> stats) throws SQLException {
+        StringBuilder definition = new StringBuilder(fixedColumns);
+        for(StatColumn stat : stats) {
+            definition.append(", ").append(getColumnName(tableSuffix, stat.getName())).append(" ").append(stat.getType().getSql());
+        }
+        String hash = Integer.toHexString((STAT_SCHEMA_VERSION+":"+definition).hashCode());
+        if(hash.equals(migrated.get(tableName))) {return;}
 
-            columnsSQL.setLength(columnsSQL.length()-1);
-            columnsSQL.append(")");
+        try(PreparedStatement stm = con.prepareStatement("CREATE TABLE IF NOT EXISTS "+tableName+" ("+definition+")")) {
+            stm.executeUpdate();
+        }
 
-            try (PreparedStatement stm = con.prepareStatement(columnsSQL.toString())) {
-                stm.executeUpdate();
+        //The table may predate some of its stats, or have been created with a different type for them
+        Map<String, String> existing = new HashMap<>();
+        try(PreparedStatement stm = con.prepareStatement(
+                "SELECT COLUMN_NAME, DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?")) {
+            stm.setString(1, GlobalSettings.getDatabaseName());
+            stm.setString(2, tableName);
+            ResultSet rs = stm.executeQuery();
+            while(rs.next()) {
+                existing.put(rs.getString("COLUMN_NAME"), rs.getString("DATA_TYPE").toLowerCase());
             }
+        }
 
-        } else {
-            StringBuilder sql = new StringBuilder("ALTER TABLE "+tableName+" ");
-            for(Map.Entry<String, Object> column : newColumns.entrySet()) {
-                sql.append("ADD COLUMN ").append(column.getKey()).append(" ").append(getDataType(column.getValue())).append(",");
+        List<String> changes = new ArrayList<>();
+        for(StatColumn stat : stats) {
+            String column = getColumnName(tableSuffix, stat.getName());
+            String dataType = existing.get(column);
+            if(dataType == null) {
+                changes.add("ADD COLUMN "+column+" "+stat.getType().getSql());
+            } else if(!dataType.equals(stat.getType().getDataType())) {
+                changes.add("MODIFY COLUMN "+column+" "+stat.getType().getSql());
             }
-            sql.setLength(sql.length()-1);
-
-            try (PreparedStatement stm = con.prepareStatement(sql.toString())) {
+        }
+        if(!changes.isEmpty()) {
+            try(PreparedStatement stm = con.prepareStatement("ALTER TABLE "+tableName+" "+String.join(", ", changes))) {
                 stm.executeUpdate();
             }
-            knownColumns.get(tableName).addAll(newColumns.keySet());
+            Main.getInstance().getLogger().info("Migrated "+tableName+": "+String.join(", ", changes));
+        }
+
+        try(PreparedStatement stm = con.prepareStatement(SAVE_SCHEMA_SQL)) {
+            stm.setString(1, tableName);
+            stm.setString(2, hash);
+            stm.executeUpdate();
         }
     }
 
+    //round_player rows always carry the Player they belong to, ahead of the declared stats
+    private List<StatColumn> getStatColumns(MinigameSettings game, boolean player) {
+        List<StatColumn> columns = game.getStatColumns(player);
+        if(player) {columns.add(0, PLAYER_UUID);}
+        return columns;
+    }
+
     /**
-     * Saves all datapoints that were logged during a game. Should be called only once per game.
-     * @param game The GameRecord that holds the save data
+     * Saves every datapoint that was logged during the given games, all inside one transaction.
+     * Only called from the GameSaveQueue writer thread.
+     * @param games Snapshots of the finished games
      * @throws SQLException :(
      */
-    public void saveGame(@NotNull GameRecord game) throws SQLException {
-        //Collect the records and prepare the tables (create tables & new columns)
-        List<Record> roundRecords = game.getRoundRecords();
-        List<Record> playerRecords = new ArrayList<>();
-        Set<UUID> knownPlayers = new HashSet<UUID>();
-        int[] roundRecordCount = {roundRecords.size()};
-        int[] playerRecordCount = new int[roundRecords.size()];
-        int idx = 0;
-        for(Record round : roundRecords) {
-            playerRecordCount[idx++] = ((RoundRecord) round).getPlayerRecords().size();
-            for(Map.Entry<UUID, RoundPlayerRecord> playerEntry : ((RoundRecord) round).getPlayerRecords().entrySet()) {
-                knownPlayers.add(playerEntry.getKey());
-                if(!playerEntry.getValue().getData().isEmpty()) {
-                    playerEntry.getValue().getData().put("player_uuid", playerEntry.getKey().toString());
-                    playerRecords.add(playerEntry.getValue());
+    public void saveGames(@NotNull List<GameSnapshot> games) throws SQLException {
+        synchronized(ratingLock) {
+            saveGamesTransaction(games);
+        }
+    }
+
+    private void saveGamesTransaction(@NotNull List<GameSnapshot> games) throws SQLException {
+        pool.execute(con -> {
+            con.setAutoCommit(false);
+            try {
+                for(GameSnapshot game : games) {
+                    saveGame(con, game);
                 }
+                con.commit();
+            } catch(SQLException e) {
+                con.rollback();
+                throw e;
+            } finally {
+                con.setAutoCommit(true);
             }
+            return null;
+        });
+    }
+
+    private void saveGame(Connection con, @NotNull GameSnapshot game) throws SQLException {
+        //Collect the records; the tables were already migrated on startup, so no DDL is needed here
+        MinigameSettings settings = MinigameSettings.valueOf(game.getGameType());
+        List<Map<String, Object>> playerRows = new ArrayList<>();
+        for(List<Map<String, Object>> round : game.getRoundPlayers()) {
+            playerRows.addAll(round);
         }
-        prepareTable(game.getRoundRecords(), game.getGameType(), "round");
-        prepareTable(playerRecords, game.getGameType(), "round_player");
 
-        //Log the game itself
-        try(PreparedStatement stm = con.prepareStatement(
-                "INSERT INTO minigame_game (game_type, game_winning_team) VALUES (?, ?)")) {
+        //Log the game itself, returning the game's unique ID to associate the rest of the data
+        int gameID;
+        try(PreparedStatement stm = con.prepareStatement(INSERT_GAME_SQL, Statement.RETURN_GENERATED_KEYS)) {
             stm.setString(1, game.getGameType());
             stm.setString(2, game.getWinningTeam());
             stm.executeUpdate();
+            try(ResultSet rs = stm.getGeneratedKeys()) {
+                rs.next();
+                gameID = rs.getInt(1);
+            }
         }
 
-        //Return the game's unique ID to associate the rest of the data
-        int gameID;
-        try(PreparedStatement stm = con.prepareStatement("SELECT LAST_INSERT_ID()")) {
-            ResultSet rs = stm.executeQuery();
-            rs.next();
-            gameID = rs.getInt(1);
+        //Map the Players to this new game entry
+        if(!game.getPlayers().isEmpty()) {
+            try(PreparedStatement stm = con.prepareStatement(INSERT_PLAYER_MAP_SQL)) {
+                for(GameSnapshot.PlayerEntry p : game.getPlayers()) {
+                    stm.setString(1, p.getUuid().toString());
+                    stm.setInt(2, gameID);
+                    stm.setString(3, p.getStartingTeam());
+                    stm.setDouble(4, p.getEloChange());
+                    stm.addBatch();
+                }
+                stm.executeBatch();
+            }
         }
+        updateRatings(con, settings, game, playerRows);
 
-        //Map the Players to this new game entry
-        StringBuilder sql = new StringBuilder("INSERT INTO minigame_player_map (player_uuid, game_id, team_name, player_elo_change) VALUES ");
-        for(Map.Entry<UUID, PlayerRecord> p : game.getPlayerRecords().entrySet()) {
-            sql.append("(").append("'").append(p.getKey().toString()).append("'").append(", ")
-                            .append(gameID).append(", ")
-                            .append("'").append(p.getValue().getStartingTeam()).append("'").append(",")
-                            .append(p.getValue().getEloChange()).append("),");
+        int[] gameIDs = new int[game.getRounds().size()];
+        Arrays.fill(gameIDs, gameID);
+        int[] roundIDs = fillVariableTable(con, "round", game, getStatColumns(settings, false), "game_id", gameIDs, game.getRounds());
+        if(roundIDs == null) {return;}
+
+        //Each Player row belongs to the round it was logged in
+        int[] playerRoundIDs = new int[playerRows.size()];
+        int idx = 0;
+        for(int i = 0; i < roundIDs.length; i++) {
+            for(int j = 0; j < game.getRoundPlayers().get(i).size(); j++) {
+                playerRoundIDs[idx++] = roundIDs[i];
+            }
         }
-        sql.setLength(sql.length()-1);
+        fillVariableTable(con, "round_player", game, getStatColumns(settings, true), "round_id", playerRoundIDs, playerRows);
+    }
 
-        try (PreparedStatement stm = con.prepareStatement(sql.toString())) {
-            stm.executeUpdate();
+    /**
+     * Adds this game's results onto each Player's running totals in minigame_player_rating
+     * @param playerRows Every round_player row of the game
+     */
+    private void updateRatings(Connection con, MinigameSettings settings, @NotNull GameSnapshot game,
+                               List<Map<String, Object>> playerRows) throws SQLException {
+        String primaryScore = settings.getPrimaryScore();
+
+        //This game's score for every Player, summed over all rounds
+        Map<String, Double> scores = new HashMap<>();
+        if(primaryScore != null) {
+            for(Map<String, Object> row : playerRows) {
+                Object score = row.get(primaryScore);
+                if(score instanceof Number) {
+                    scores.merge((String) row.get("player_uuid"), ((Number) score).doubleValue(), Double::sum);
+                }
+            }
         }
 
-        int[] roundIDs = fillVariableTable("round", game, "game_id", new int[] {gameID}, roundRecords, roundRecordCount);
-        fillVariableTable("round_player", game, "round_id", roundIDs, playerRecords, playerRecordCount);
+        try(PreparedStatement stm = con.prepareStatement(settings.isPrimaryScoreAggregate() ? UPDATE_RATING_SUM_SQL : UPDATE_RATING_MAX_SQL)) {
+            for(GameSnapshot.PlayerEntry p : game.getPlayers()) {
+                String uuid = p.getUuid().toString();
+                Double score = scores.remove(uuid);
+                addRatingBatch(stm, uuid, game.getGameType(), p.getEloChange(),
+                        p.getStartingTeam().equals(game.getWinningTeam()) ? 1 : 0, score == null ? 0 : score);
+            }
+            for(Map.Entry<String, Double> lateJoiner : scores.entrySet()) {//Scored, but joined after the game started
+                addRatingBatch(stm, lateJoiner.getKey(), game.getGameType(), 0, 0, lateJoiner.getValue());
+            }
+            stm.executeBatch();
+        }
     }
 
-    private int[] fillVariableTable(String tableSuffix, GameRecord game, String IDname, int[] IDs, List<Record> records, int[] recordCount) throws SQLException {
-        if(records.isEmpty() || IDs == null) {return null;}
-        String tableName = getTableName(game.getGameType(), tableSuffix);
+    private void addRatingBatch(PreparedStatement stm, String uuid, String gameType, double rating, int wins, double highScore) throws SQLException {
+        stm.setString(1, uuid);
+        stm.setString(2, gameType);
+        stm.setDouble(3, rating);
+        stm.setInt(4, wins);
+        stm.setDouble(5, highScore);
+        stm.addBatch();
+    }
 
-        //Get column names
-        String IDcolumn = tableSuffix + "_id";
-        String fkColumn = tableSuffix + "_" + IDname;
-        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableName).append(" (").append(fkColumn).append(",");
+    /**
+     * Throws away minigame_player_rating and recomputes it from the full game history. Slow; only meant to be run
+     * once after upgrading, or if the table is ever suspected to be wrong. Game saves wait until it finishes.
+     * @return The number of rating rows rebuilt
+     */
+    public int rebuildRatings() throws SQLException {
+        synchronized(ratingLock) {
+            return pool.execute(con -> {
+                con.setAutoCommit(false);
+                try {
+                    int rows = rebuildRatings(con);
+                    con.commit();
+                    return rows;
+                } catch(SQLException e) {
+                    con.rollback();
+                    throw e;
+                } finally {
+                    con.setAutoCommit(true);
+                }
+            });
+        }
+    }
 
-        Set<String> columns = new HashSet<>(knownColumns.get(tableName));
-        columns.remove(IDcolumn);
-        columns.remove(fkColumn);
-        sql.append(String.join(",", columns)).append(") VALUES (");
+    private int rebuildRatings(Connection con) throws SQLException {
+        try(PreparedStatement stm = con.prepareStatement("DELETE FROM minigame_player_rating")) {
+            stm.executeUpdate();
+        }
 
-        //Add tokens for PreparedStatement to replace
-        for(int i = 0; i < columns.size()+1; i++) {
-            sql.append("?,");
+        int rows;
+        try(PreparedStatement stm = con.prepareStatement(
+                "INSERT INTO minigame_player_rating (player_uuid, game_type, rating, wins, high_score) " +
+                "SELECT minigame_player_map.player_uuid, game_type, COALESCE(SUM(player_elo_change), 0), " +
+                "    COALESCE(SUM(game_winning_team = team_name), 0), 0 " +
+                "FROM minigame_player_map JOIN minigame_game ON minigame_game.game_id = minigame_player_map.game_id " +
+                "GROUP BY minigame_player_map.player_uuid, game_type")) {
+            rows = stm.executeUpdate();
+        }
+
+        for(MinigameSettings game : MinigameSettings.values()) {
+            String primaryScore = game.getPrimaryScore();
+            String roundTable = getTableName(game.name(), "round");
+            String playerTable = getTableName(game.name(), "round_player");
+            if(primaryScore == null || !isDeclared(game.getStatColumns(true), primaryScore)) {continue;}
+
+            //Players who scored without being mapped to the game (late joiners) still need a row
+            try(PreparedStatement stm = con.prepareStatement(
+                    "INSERT IGNORE INTO minigame_player_rating (player_uuid, game_type) " +
+                    "SELECT DISTINCT round_player_player_uuid, ? FROM "+playerTable+" " +
+                    "JOIN minigame_player ON minigame_player.player_uuid = round_player_player_uuid")) {
+                stm.setString(1, game.name());
+                rows += stm.executeUpdate();
+            }
+
+            //Total each Player's score per game, then keep the best (or the sum, for aggregate scores)
+            try(PreparedStatement stm = con.prepareStatement(
+                    "UPDATE minigame_player_rating JOIN (" +
+                    "    SELECT player_uuid, "+(game.isPrimaryScoreAggregate() ? "SUM" : "MAX")+"(game_score) AS best " +
+                    "    FROM (SELECT round_player_player_uuid AS player_uuid, SUM(round_player_"+primaryScore+") AS game_score " +
+                    "        FROM "+roundTable+" JOIN "+playerTable+" ON round_player_round_id = round_id " +
+                    "        GROUP BY round_player_player_uuid, round_game_id) AS game_scores " +
+                    "    GROUP BY player_uuid) AS scores ON scores.player_uuid = minigame_player_rating.player_uuid " +
+                    "SET high_score = COALESCE(scores.best, 0) WHERE game_type = ?")) {
+                stm.setString(1, game.name());
+                stm.executeUpdate();
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Batch inserts the given rows into one of the minigame's variable tables
+     * @param stats Declared columns of the table; anything else in the rows is dropped
+     * @param IDs Foreign key for each row, parallel to rows
+     * @return The generated primary key of each row
+     */
+    private int[] fillVariableTable(Connection con, String tableSuffix, GameSnapshot game, List<StatColumn> stats,
+                                    String IDname, int[] IDs, List<Map<String, Object>> rows) throws SQLException {
+        if(rows.isEmpty()) {return null;}
+        String tableName = getTableName(game.getGameType(), tableSuffix);
+        warnUndeclared(tableName, stats, rows);
+
+        //Declared columns are in a fixed order, so the statement text (and its cache entry) never changes
+        StringBuilder sql = new StringBuilder("INSERT INTO ").append(tableName).append(" (")
+                .append(getColumnName(tableSuffix, IDname));
+        for(StatColumn stat : stats) {
+            sql.append(",").append(getColumnName(tableSuffix, stat.getName()));
+        }
+        sql.append(") VALUES (?");
+        for(int i = 0; i < stats.size(); i++) {
+            sql.append(",?");
         }
-        sql.setLength(sql.length()-1);
         sql.append(")");
 
-        int[] returnIDs = new int[records.size()];
+        int[] returnIDs = new int[rows.size()];
         try(PreparedStatement stm = con.prepareStatement(sql.toString(), PreparedStatement.RETURN_GENERATED_KEYS)) {
-            int idxCounter = 0;
-            int counter = 0;
             int idx;
-            for(Record record : records) {
+            for(int row = 0; row < rows.size(); row++) {
                 idx = 1;
-                if(record.getData().isEmpty()) {continue;}
-                while(counter == recordCount[idxCounter]) {
-                    counter = 0;
-                    idxCounter++;
-                }
-
-                stm.setInt(idx++, IDs[idxCounter]);
-                for(String column : columns) {
-                    stm.setObject(idx++, record.getData().get(getFieldName(tableSuffix, column)));
+                stm.setInt(idx++, IDs[row]);
+                for(StatColumn stat : stats) {
+                    stm.setObject(idx++, rows.get(row).get(stat.getName()));
                 }
                 stm.addBatch();
-                counter++;
             }
 
             stm.executeBatch();
@@ -267,8 +448,43 @@ public class SQLInputOutputStrategy implements InputOutputStrategy {
         return returnIDs;
     }
 
-    private String getFieldName(String suffix, String column) {
-        return column.substring(suffix.length()+1);
+    //Stats must be declared in MinigameSettings to be saved; complain (once) about any that weren't
+    private void warnUndeclared(String tableName, List<StatColumn> stats, List<Map<String, Object>> rows) {
+        for(Map<String, Object> row : rows) {
+            for(String field : row.keySet()) {
+                if(!isDeclared(stats, field) && warnedStats.add(tableName+"."+field)) {
+                    Main.getInstance().getLogger().warning("Stat '"+field+"' is not declared for "+tableName+
+                            " in MinigameSettings and will not be saved.");
+                }
+            }
+        }
+    }
+
+    private boolean isDeclared(List<StatColumn> stats, String field) {
+        for(StatColumn stat : stats) {
+            if(stat.getName().equals(field)) {return true;}
+        }
+        return false;
+    }
+
+    private String getUrl() {
+        return "jdbc:mysql://" + GlobalSettings.getDatabaseAddress() +
+                "/" + GlobalSettings.getDatabaseName() +
+                "?user=" + GlobalSettings.getDatabaseUsername() +
+                "&password=" + GlobalSettings.getDatabasePassword() +
+                "&allowMultiQueries=true" +
+                //Server-side prepared statements, cached per connection so hot queries are only parsed once
+                "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048";
+    }
+
+    @Override
+    public List<String> getStats() {
+        return pool.getStats();
+    }
+
+    @Override
+    public void close() {
+        pool.close();
     }
 
     private String getColumnName(@NotNull String suffix, @NotNull String field) {
@@ -282,138 +498,88 @@ public class SQLInputOutputStrategy implements InputOutputStrategy {
         return toReturn;
     }
 
-    private String getDataType(Object data) {
-        if(data instanceof Boolean) {
-            return "BOOLEAN";
-        } else if(data instanceof Number) {
-            if(data instanceof Byte) {
-                return "TINYINT";
-            } else if(data instanceof Short) {
-                return "SMALLINT";
-            } else if(data instanceof Integer) {
-                return "INT";
-            } else if(data instanceof Long) {
-                return "BIGINT";
-            } else {
-                return "DOUBLE PRECISION";
-            }
+    public void savePlayer(UUID uuid, String name, PlayerData pd) {
+        try {
+            pool.execute(con -> {
+                try(PreparedStatement stm = con.prepareStatement(SAVE_PLAYER_SQL)) {
+                    stm.setString(1, uuid.toString());
+                    stm.setString(2, name);
+                    stm.setInt(3, pd.getTokens());
+                    stm.setInt(4, pd.getTickets());
+                    Instant expiry = pd.getGamePassFinish() == null ? Instant.now() : pd.getGamePassFinish();
+                    stm.setTimestamp(5, new Timestamp(expiry.toEpochMilli()));
+                    stm.executeUpdate();
+                }
+                return null;
+            });
+        } catch(Exception e) {
+            notifyError(e, "CRITICAL: Failed to save player "+name+" ("+uuid+"): ");
         }
-        return "VARCHAR(36)";
-    }
 
-    public void savePlayer(Player p, PlayerData pd) {
-        String query = "UNKNOWN QUERY";
-        try(PreparedStatement stm = con.prepareStatement("INSERT INTO minigame_player " +
-                "(player_uuid, player_name, player_tokens, player_tickets, player_pass_expiration) " +
-                "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
-                "player_name=VALUES(player_name), player_tokens=VALUES(player_tokens), " +
-                "player_tickets=VALUES(player_tickets), player_pass_expiration=VALUES(player_pass_expiration)")) {
-            stm.setString(1, p.getUniqueId().toString());
-            stm.setString(2, p.getName());
-            stm.setInt(3, pd.getTokens());
-            stm.setInt(4, pd.getTickets());
-            Instant expiry = pd.getGamePassFinish() == null ? Instant.now() : pd.getGamePassFinish();
-            stm.setTimestamp(5, new Timestamp(expiry.toEpochMilli()));
-            query = stm.toString();
-            stm.executeUpdate();
+        try {
+            pool.execute(con -> {
+                try(PreparedStatement stm = con.prepareStatement(SAVE_SESSION_SQL)) {
+                    stm.setString(1, uuid.toString());
+                    stm.setLong(2, Duration.between(pd.getJoinInstant(), Instant.now()).getSeconds());
+                    stm.setInt(3, pd.getTokensSpent());
+                    stm.setInt(4, pd.getTicketsEarned());
+                    stm.setInt(5, pd.getTicketsSpent());
+                    stm.setInt(6, pd.getTokensEarned());
+                    stm.setInt(7, pd.getMessagesSent());
+                    stm.executeUpdate();
+                }
+                return null;
+            });
         } catch(Exception e) {
-            notifyError(e, "CRITICAL: Failed to save player: "+query+" -> ");
-        }
-
-        try(PreparedStatement stm = con.prepareStatement("INSERT INTO minigame_player_session " +
-                "(session_player_uuid, session_duration, session_tokens_spent, session_tickets_earned, " +
-                "session_tickets_spent, session_tokens_earned, session_messages_sent) VALUES (?, ?, ?, ?, ?, ?, ?)")) {
-            stm.setString(1, p.getUniqueId().toString());
-            stm.setLong(2, Duration.between(pd.getJoinInstant(), Instant.now()).getSeconds());
-            stm.setInt(3, pd.getTokensSpent());
-            stm.setInt(4, pd.getTicketsEarned());
-            stm.setInt(5, pd.getTicketsSpent());
-            stm.setInt(6, pd.getTokensEarned());
-            stm.setInt(7, pd.getMessagesSent());
-            stm.executeUpdate();
+            notifyError(e, "CRITICAL: Failed to save player session "+name+" ("+uuid+"): ");
+        }
+    }
+
+    public int loadPlayer(UUID uuid, String name, PlayerData pd) {
+        try {
+            return pool.execute(con -> loadPlayer(con, uuid, name, pd));
         } catch(Exception e) {
-            notifyError(e, "CRITICAL: Failed to save player session: "+query+" -> ");
+            notifyError(e, "CRITICAL: Failed to load player: ");
+            return -1;
         }
     }
 
-    public int loadPlayer(Player p, PlayerData pd) {
-        try(PreparedStatement stm = con.prepareStatement("SELECT *," +
-                "(SELECT COUNT(session_player_uuid) FROM minigame_player_session WHERE session_player_uuid = player_uuid) AS player_logins" +
-                " FROM minigame_player WHERE player_UUID = ?")) {
-            stm.setString(1, p.getUniqueId().toString());
+    private int loadPlayer(Connection con, UUID uuid, String name, PlayerData pd) throws SQLException {
+        try(PreparedStatement stm = con.prepareStatement(LOAD_PLAYER_SQL)) {
+            stm.setString(1, uuid.toString());
             ResultSet rs = stm.executeQuery();
             if(rs.next()) {
                 pd.setTickets(rs.getInt("player_tickets"));
                 pd.setTokens(rs.getInt("player_tokens"));
                 pd.setGamePassFinish(rs.getTimestamp("player_pass_expiration").toInstant());
+                int logins = rs.getInt("player_logins");
 
-                try(PreparedStatement elo = con.prepareStatement(
-                    "SELECT game_type, " +
-                            "SUM((SELECT COUNT(*)" +
-                            "    FROM minigame_player_map" +
-                            "    WHERE minigame_player_map.game_id = minigame_game.game_id" +
-                            "    AND minigame_player_map.player_uuid = ?" +
-                            "    AND game_winning_team = team_name)) AS game_wins, " +
-                            "SUM((SELECT SUM(player_elo_change) " +
-                            "    FROM minigame_player_map " +
-                            "    WHERE minigame_player_map.game_id = minigame_game.game_id " +
-                            "    AND minigame_player_map.player_uuid = ?)) AS elo_change " +
-                            "FROM minigame_game " +
-                            "WHERE TRUE " +
-                            "GROUP BY game_type ")) {
-                    elo.setString(1, p.getUniqueId().toString());
-                    elo.setString(2, p.getUniqueId().toString());
-                    ResultSet eloSets = elo.executeQuery();
-                    String gameType; MinigameSettings settings;
-                    while(eloSets.next()) {
-                        gameType = eloSets.getString("game_type");
+                do {
+                    String gameType = rs.getString("game_type");
+                    if(gameType == null) {continue;}//Never played anything
+                    MinigameSettings settings;
+                    try {
                         settings = MinigameSettings.valueOf(gameType);
-                        if(settings.getPrimaryScore() == null || settings.getPrimaryScore().equalsIgnoreCase("elo")) {
-                            System.out.println(p.getName() + "'s elo in " + eloSets.getString("game_type") + " is " + eloSets.getDouble("elo_change"));
-                            pd.addElo(gameType, eloSets.getDouble("elo_change"));
-                        } else if(settings.getPrimaryScore().equalsIgnoreCase("wins")) {
-                            pd.addElo(gameType, eloSets.getInt("game_wins"));
-                        }
+                    } catch(IllegalArgumentException e) {
+                        continue;//Minigame has since been removed
                     }
-                }
-
-                StringBuilder highScoreSQL = new StringBuilder();
-                String name, primaryScore;
-                for(MinigameSettings game : MinigameSettings.values()) {
-                    primaryScore = game.getPrimaryScore();
-                    name = game.name().toLowerCase();
-                    if(primaryScore == null || primaryScore.equalsIgnoreCase("elo") || primaryScore.equalsIgnoreCase("wins") ||
-                            !knownColumns.containsKey("minigame_"+name+"_round") || !knownColumns.containsKey("minigame_"+name+"_round_player")) {continue;}
-                    String collFunc = game.isPrimaryScoreAggregate() ? "SUM" : "MAX";
-                    highScoreSQL.append(
-                        "SELECT '").append(game.name()).append("'").append(" AS game_type, ").append(collFunc).append(
-                                "((SELECT SUM(round_player_").append(primaryScore).append(") FROM minigame_").append(name).append("_round " +
-                        "    LEFT JOIN minigame_").append(name).append("_round_player " +
-                        "       ON minigame_").append(name).append("_round_player.round_player_round_id = minigame_").append(name).append("_round.round_id  " +
-                        "    WHERE minigame_").append(name).append("_round.round_game_id = minigame_game.game_id " +
-                        "       AND `minigame_").append(name).append("_round_player`.round_player_player_uuid = '").append(p.getUniqueId()).append("')) AS high_score " +
-                        "FROM minigame_game;"
-                    );
-                }
-
-                try(PreparedStatement hiScore = con.prepareStatement(highScoreSQL.toString())) {
-                    ResultSet scores = hiScore.executeQuery();
-                    while(scores.next()) {
-                        System.out.println(p.getName()+"'s highscore in "+scores.getString("game_type")+" is "+scores.getDouble("high_score"));
-                        pd.addElo(scores.getString("game_type"), scores.getDouble("high_score"));
+                    String primaryScore = settings.getPrimaryScore();
+                    if(primaryScore == null || primaryScore.equalsIgnoreCase("elo")) {
+                        pd.addElo(gameType, rs.getDouble("rating"));
+                    } else if(primaryScore.equalsIgnoreCase("wins")) {
+                        pd.addElo(gameType, rs.getInt("wins"));
+                    } else {
+                        pd.addElo(gameType, rs.getDouble("high_score"));
                     }
-                }
-                return rs.getInt("player_logins");
+                } while(rs.next());
+                return logins;
             }
-            try(PreparedStatement insert = con.prepareStatement("INSERT INTO minigame_player (player_uuid, player_name) VALUES (?, ?)")) {
-                insert.setString(1, p.getUniqueId().toString());
-                insert.setString(2, p.getName());
+            try(PreparedStatement insert = con.prepareStatement(INSERT_PLAYER_SQL)) {
+                insert.setString(1, uuid.toString());
+                insert.setString(2, name);
                 insert.executeUpdate();
                 return 0;
             }
-        } catch(Exception e) {
-            notifyError(e, "CRITICAL: Failed to load player: ");
-            return -1;
         }
     }
 
@@ -0,0 +1,33 @@
+package minigame.io;
+
+import lombok.Value;
+
+/**
+ * Declares one stat a minigame logs to its GameRecord, and therefore one column in its round or round_player table.
+ * Every stat must be declared up front in MinigameSettings so the tables can be migrated once on startup.
+ */
+@Value
+public class StatColumn {
+    String name;
+    StatType type;
+    boolean player; //True for per-Player stats (round_player table), false for per-round stats (round table)
+    boolean aggregate; //True if the stat is a running total built with increment(), false if it is overwritten with set()
+
+    //Logged by every Minigame, regardless of type
+    public static final StatColumn[] COMMON = {
+            round("length", StatType.BIGINT, false),
+            round("winning_team", StatType.STRING, false),
+            player("life_length", StatType.BIGINT, false),
+            player("deaths", StatType.INT, true),
+            player("kills", StatType.INT, true),
+            player("team_swap", StatType.STRING, false)
+    };
+
+    public static StatColumn round(String name, StatType type, boolean aggregate) {
+        return new StatColumn(name, type, false, aggregate);
+    }
+
+    public static StatColumn player(String name, StatType type, boolean aggregate) {
+        return new StatColumn(name, type, true, aggregate);
+    }
+}
@@ -0,0 +1,58 @@
+package minigame.io;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The stat slots of one record type (a Minigame's rounds, or its Players' rounds). Stat names are looked up once,
+ * when a Minigame registers them; from then on every stat is addressed by its slot index.
+ */
+public class StatSchema {
+    public static final int MAX_SLOTS = 64;//Records track which slots were logged in one long
+
+    @Getter private final List<StatColumn> columns;
+    private final Map<String, Integer> slots = new HashMap<>();
+    @Getter private final boolean decimal; //Whether any slot needs double storage
+    @Getter private final boolean text; //Whether any slot needs String storage
+
+    public StatSchema(List<StatColumn> columns) {
+        if(columns.size() > MAX_SLOTS) {throw new IllegalArgumentException("More than "+MAX_SLOTS+" stats declared");}
+        this.columns = Collections.unmodifiableList(columns);
+        boolean decimal = false, text = false;
+        for(int i = 0; i < columns.size(); i++) {
+            slots.put(columns.get(i).getName(), i);
+            decimal |= columns.get(i).getType().isDecimal();
+            text |= columns.get(i).getType().isText();
+        }
+        this.decimal = decimal;
+        this.text = text;
+    }
+
+    /**
+     * @param name Stat name, as declared in MinigameSettings
+     * @return Slot index of the stat
+     * @throws IllegalArgumentException If the stat was never declared
+     */
+    public int slot(String name) {
+        Integer slot = slots.get(name);
+        if(slot == null) {throw new IllegalArgumentException("Stat '"+name+"' is not declared in MinigameSettings");}
+        return slot;
+    }
+
+    //Same as slot(), but -1 instead of an exception
+    public int find(String name) {
+        return slots.getOrDefault(name, -1);
+    }
+
+    public StatType getType(int slot) {
+        return columns.get(slot).getType();
+    }
+
+    public int size() {
+        return columns.size();
+    }
+}
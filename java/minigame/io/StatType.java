@@ -0,0 +1,29 @@
+package minigame.io;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * SQL column types a minigame stat can be declared as
+ */
+@Getter
+@AllArgsConstructor
+public enum StatType {
+    BOOLEAN("BOOLEAN", "tinyint"),
+    INT("INT", "int"),
+    BIGINT("BIGINT", "bigint"), //Durations and Instants are stored as seconds
+    DOUBLE("DOUBLE PRECISION", "double"),
+    STRING("VARCHAR(36)", "varchar"),
+    TEXT("TEXT", "text"); //Unbounded strings, e.g. a game's full move list
+
+    private final String sql; //Used in CREATE/ALTER TABLE
+    private final String dataType; //As reported by INFORMATION_SCHEMA.COLUMNS.DATA_TYPE
+
+    public boolean isDecimal() {
+        return this == DOUBLE;
+    }
+
+    public boolean isText() {
+        return this == STRING || this == TEXT;
+    }
+}
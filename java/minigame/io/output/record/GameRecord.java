@@ -6,6 +6,7 @@ import lombok.Setter;
 import minigame.Main;
 import minigame.game.Minigame;
 import minigame.io.Record;
+import minigame.io.StatSchema;
 import minigame.util.MinigameTeam;
 import minigame.io.InputOutputManager;
 import minigame.player.PlayerManager;
@@ -26,11 +27,18 @@ public class GameRecord {
     @Getter private final List<Record> roundRecords = new ArrayList<>();
     @Getter private final HashMap<UUID, PlayerRecord> playerRecords = new HashMap<>();
     private final List<MinigameTeam> teams;//MinigameTeams are mutable
+    private final Minigame minigame;
     private RoundRecord currentRound;
     @Getter private String winningTeam = NOT_APPLICABLE;
     private boolean hasSaved = false;
     private final String primaryScore;
     private final boolean aggregatePrimaryScore;
+    private final StatSchema roundSchema;
+    private final StatSchema playerSchema;
+    private final int lengthSlot;
+    private final int winningTeamSlot;
+    private final int teamSwapSlot;
+    private final int primaryScoreSlot;//-1 if the primary score isn't a logged stat (elo, wins)
     @Setter private List<MinigameTeam> teamRanks;
 
     public GameRecord(@NotNull Minigame m, @NotNull List<MinigameTeam> teams) {
@@ -38,7 +46,14 @@ public class GameRecord {
         this.primaryScore = m.getSettings().getPrimaryScore();
         this.aggregatePrimaryScore = m.getSettings().isPrimaryScoreAggregate();
         this.teams = teams;
-        this.currentRound = new RoundRecord();
+        this.minigame = m;
+        this.roundSchema = m.getSettings().getStatSchema(false);
+        this.playerSchema = m.getSettings().getStatSchema(true);
+        this.lengthSlot = roundSchema.slot("length");
+        this.winningTeamSlot = roundSchema.slot("winning_team");
+        this.teamSwapSlot = playerSchema.slot("team_swap");
+        this.primaryScoreSlot = primaryScore == null ? -1 : playerSchema.find(primaryScore);
+        this.currentRound = new RoundRecord(roundSchema, playerSchema);
         for(MinigameTeam team : teams) {
             for(Player p : team.getPlayers()) {
                 this.playerRecords.put(p.getUniqueId(), new PlayerRecord(team.getName()));
@@ -50,16 +65,16 @@ public class GameRecord {
     public void save() {
         try {
             if(hasSaved) {throw new IllegalStateException();}
-            currentRound.endRound();
+            currentRound.endRound(lengthSlot);
             roundRecords.add(currentRound);
 
             if(primaryScore != null && !primaryScore.equals("elo")) {//Update player stats in-game (high score)
                 for(Record round : roundRecords) {
                     for(Map.Entry<UUID, RoundPlayerRecord> record : ((RoundRecord)round).getPlayerRecords().entrySet()) {
-                        Object wrapper = record.getValue().getData().get(primaryScore);
+                        if(primaryScoreSlot == -1 || !record.getValue().isLogged(primaryScoreSlot)) {continue;}
                         UUID p = record.getKey();
-                        if(wrapper == null) {continue;}
-                        double score = ((Number) wrapper).doubleValue();
+                        if(!PlayerManager.isLoaded(p)) {continue;}//Left the server; their profile is already saved
+                        double score = record.getValue().getNumber(primaryScoreSlot);
                         if(!aggregatePrimaryScore && PlayerManager.getHighScore(p, gameType) < score) {
                             PlayerManager.setHighScore(p, gameType, score);
                         } else if(aggregatePrimaryScore) {
@@ -83,13 +98,41 @@ public class GameRecord {
                 }
             }
 
-            InputOutputManager.getOutput().saveGame(this);
+            InputOutputManager.saveGame(snapshot());
             hasSaved = true;
         } catch(Exception e) {
             notifyError(e, "failed to save");
         }
     }
 
+    /**
+     * Copies everything the database needs out of this record, so it can be written off the main thread
+     * @return GameSnapshot that is safe to hand to another thread
+     */
+    private GameSnapshot snapshot() {
+        List<Map<String, Object>> rounds = new ArrayList<>(roundRecords.size());
+        List<List<Map<String, Object>>> roundPlayers = new ArrayList<>(roundRecords.size());
+        for(Record round : roundRecords) {
+            rounds.add(Collections.unmodifiableMap(round.toMap()));
+            List<Map<String, Object>> players = new ArrayList<>();
+            for(Map.Entry<UUID, RoundPlayerRecord> entry : ((RoundRecord) round).getPlayerRecords().entrySet()) {
+                if(entry.getValue().isEmpty()) {continue;}
+                Map<String, Object> data = entry.getValue().toMap();
+                data.put("player_uuid", entry.getKey().toString());
+                players.add(Collections.unmodifiableMap(data));
+            }
+            roundPlayers.add(Collections.unmodifiableList(players));
+        }
+
+        List<GameSnapshot.PlayerEntry> players = new ArrayList<>(playerRecords.size());
+        for(Map.Entry<UUID, PlayerRecord> p : playerRecords.entrySet()) {
+            players.add(new GameSnapshot.PlayerEntry(p.getKey(), p.getValue().getStartingTeam(), p.getValue().getEloChange()));
+        }
+
+        return new GameSnapshot(gameType, winningTeam, Collections.unmodifiableList(rounds),
+                Collections.unmodifiableList(roundPlayers), Collections.unmodifiableList(players));
+    }
+
     public void setGameWinner(MinigameTeam winner) {
         try {
             if(!winningTeam.equals(NOT_APPLICABLE)) {throw new IllegalStateException();}
@@ -152,96 +195,114 @@ public class GameRecord {
 
     //Log the winner of the Game OR Round
     public void saveRoundWin(@NonNull MinigameTeam winner) {
-        currentRound.teamWon(winner.getName());
+        currentRound.teamWon(winningTeamSlot, winner.getName());
         nextRound();
     }
+
+    /*
+        Stat slots - look these up once (e.g. into a final field) and log with the slot from then on
+     */
+    public int playerStat(String name) {
+        return playerSchema.slot(name);
+    }
+
+    public int roundStat(String name) {
+        return roundSchema.slot(name);
+    }
+
     /*
         Overwrite events (only the last (or only) value matters)
      */
     //Timed Player Event
-    public void set(Player p, String event, Duration duration) {
-        getRoundPlayerRecord(p).overwrite(event, duration);
+    public void set(Player p, int stat, Duration duration) {
+        getRoundPlayerRecord(p).overwrite(stat, duration.getSeconds());
+    }
+
+    //Player event
+    public void set(Player p, int stat, String result) {
+        getRoundPlayerRecord(p).overwrite(stat, result);
     }
 
     //Player event
-    public void set(Player p, String event, String result) {
-        getRoundPlayerRecord(p).overwrite(event, result);
+    public void set(Player p, int stat, long result) {
+        getRoundPlayerRecord(p).overwrite(stat, result);
     }
 
     //Player event
-    public void set(Player p, String event, Number result) {
-        getRoundPlayerRecord(p).overwrite(event, result);
+    public void set(Player p, int stat, double result) {
+        getRoundPlayerRecord(p).overwrite(stat, result);
     }
 
     //General Minigame Event
-    public void set(String event, String result) {
-        currentRound.overwrite(event, result);
+    public void set(int stat, String result) {
+        currentRound.overwrite(stat, result);
     }
 
     //Boolean boii
-    public void set(String event, boolean result) {
-        currentRound.overwrite(event, result);
+    public void set(int stat, boolean result) {
+        currentRound.overwrite(stat, result);
     }
 
     /*
         Count events (the number of occurrences matters)
      */
     //Player-on-Player Event
-    public void add(Player p, String event, Player otherPlayer) {
-        getRoundPlayerRecord(p).add(event, otherPlayer.getUniqueId().toString());
+    public void add(Player p, int stat, Player otherPlayer) {
+        getRoundPlayerRecord(p).add(stat, otherPlayer.getUniqueId().toString());
     }
 
     //Timed Player Event
-    public void increment(Player p, String event, Duration toAdd) {
-        getRoundPlayerRecord(p).add(event, toAdd);
+    public void increment(Player p, int stat, Duration toAdd) {
+        getRoundPlayerRecord(p).add(stat, toAdd.getSeconds());
     }
 
     //Timed General Minigame Event
-    public void increment(String event, Duration toAdd) {
-        currentRound.add(event, toAdd);
+    public void increment(int stat, Duration toAdd) {
+        currentRound.add(stat, toAdd.getSeconds());
     }
 
     //Player event
-    public void increment(Player p, String event, Number toAdd) {
-        getRoundPlayerRecord(p).add(event, toAdd);
+    public void increment(Player p, int stat, long toAdd) {
+        getRoundPlayerRecord(p).add(stat, toAdd);
+    }
+
+    //Player event
+    public void increment(Player p, int stat, double toAdd) {
+        getRoundPlayerRecord(p).add(stat, toAdd);
     }
 
     //General Minigame Event
-    public void increment(String event, Number toAdd) {
-        currentRound.add(event, toAdd);
+    public void increment(int stat, long toAdd) {
+        currentRound.add(stat, toAdd);
     }
 
-    public void increment(String event, String toAdd) {
-        currentRound.add(event, toAdd);
+    public void increment(int stat, String toAdd) {
+        currentRound.add(stat, toAdd);
     }
 
-    public void decrement(String event, Duration toSubtract) {
-        currentRound.add(event, toSubtract);
+    public void decrement(int stat, Duration toSubtract) {
+        currentRound.add(stat, -toSubtract.getSeconds());
     }
 
     private RoundPlayerRecord getRoundPlayerRecord(@NotNull Player p) {
-        currentRound.getPlayerRecords().computeIfAbsent(p.getUniqueId(), (k) -> new RoundPlayerRecord(p.getName(), k, getTeam(p)));
-        return currentRound.getPlayerRecords().get(p.getUniqueId());
+        RoundPlayerRecord record = currentRound.getPlayerRecords().get(p.getUniqueId());
+        return record != null ? record : currentRound.addPlayer(p, getTeam(p));
     }
 
     public void nextRound() {
-        currentRound.endRound();
+        currentRound.endRound(lengthSlot);
         roundRecords.add(currentRound);
-        currentRound = new RoundRecord();
+        currentRound = new RoundRecord(roundSchema, playerSchema);
     }
 
     public void changeTeam(Player p, String teamName) {
-        getRoundPlayerRecord(p).overwrite("team_swap", teamName);
+        getRoundPlayerRecord(p).overwrite(teamSwapSlot, teamName);
         playerRecords.get(p.getUniqueId()).setCurrentTeam(teamName);
     }
 
     private String getTeam(Player p) {
-        for(MinigameTeam team : teams) {
-            if(team.getPlayers().contains(p)) {
-                return team.getName();
-            }
-        }
-        return NOT_APPLICABLE;
+        MinigameTeam team = minigame.getTeam(p);
+        return team == null ? NOT_APPLICABLE : team.getName();
     }
 
     public int getRoundIndex() {
@@ -0,0 +1,27 @@
+package minigame.io.output.record;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Immutable copy of a finished GameRecord. Taken on the main thread when the game ends, then handed to the
+ * background writer so the database never has to look at live (mutable) game state.
+ */
+@Value
+public class GameSnapshot {
+    String gameType;
+    String winningTeam;
+    List<Map<String, Object>> rounds; //One column->value map per round
+    List<List<Map<String, Object>>> roundPlayers; //Parallel to rounds, one map per Player that logged data that round
+    List<PlayerEntry> players;
+
+    @Value
+    public static class PlayerEntry {
+        UUID uuid;
+        String startingTeam;
+        double eloChange;
+    }
+}
@@ -2,6 +2,7 @@ package minigame.io.output.record;
 
 import lombok.Getter;
 import minigame.io.Record;
+import minigame.io.StatSchema;
 
 import java.util.UUID;
 
@@ -11,7 +12,8 @@ public final class RoundPlayerRecord extends Record {
     @Getter private UUID uuid;
     @Getter private String teamName;
 
-    protected RoundPlayerRecord(String name, UUID uuid, String teamName) {
+    protected RoundPlayerRecord(StatSchema schema, String name, UUID uuid, String teamName) {
+        super(schema);
         this.name = name;
         this.uuid = uuid;
         this.teamName = teamName;
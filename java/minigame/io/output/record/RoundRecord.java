@@ -2,6 +2,7 @@ package minigame.io.output.record;
 
 import lombok.Getter;
 import minigame.io.Record;
+import minigame.io.StatSchema;
 import org.bukkit.entity.Player;
 
 import java.time.Duration;
@@ -12,24 +13,33 @@ import java.util.UUID;
 
 public final class RoundRecord extends Record {
     @Getter private final HashMap<UUID, RoundPlayerRecord> playerRecords = new HashMap<>();
+    private final StatSchema playerSchema;
     private final Instant roundStart; //Used to calculate round length
     @Getter private boolean modified; //TODO reutilize
 
-    protected RoundRecord() {
+    protected RoundRecord(StatSchema schema, StatSchema playerSchema) {
+        super(schema);
+        this.playerSchema = playerSchema;
         roundStart = Instant.now();
     }
 
-    protected void endRound() {
-        overwrite("length", Duration.between(roundStart, Instant.now()));
+    protected void endRound(int lengthSlot) {
+        overwrite(lengthSlot, Duration.between(roundStart, Instant.now()).getSeconds());
     }
 
     protected void addPlayers(List<Player> players, String teamName) {
         for(Player p : players) {
-            this.playerRecords.put(p.getUniqueId(), new RoundPlayerRecord(p.getName(), p.getUniqueId(), teamName));
+            this.playerRecords.put(p.getUniqueId(), new RoundPlayerRecord(playerSchema, p.getName(), p.getUniqueId(), teamName));
         }
     }
 
-    protected void teamWon(String teamName) {
-        getData().put("winning_team", teamName);
+    protected RoundPlayerRecord addPlayer(Player p, String teamName) {
+        RoundPlayerRecord record = new RoundPlayerRecord(playerSchema, p.getName(), p.getUniqueId(), teamName);
+        playerRecords.put(p.getUniqueId(), record);
+        return record;
+    }
+
+    protected void teamWon(int winningTeamSlot, String teamName) {
+        overwrite(winningTeamSlot, teamName);
     }
 }
@@ -0,0 +1,120 @@
+package minigame.lobby;
+
+import minigame.game.MinigameManager;
+import minigame.game.MinigameSettings;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matchmaking shared by every lobby group of one minigame. A group whose own region is busy can start its match in any
+ * idle region of the same minigame, and a group that can't fill a match alone can be joined by the players waiting in
+ * the other groups. Games played in their lobby and lobby-per-team games only ever pool their own lobbies, and games
+ * played in their lobby never leave their own region. Main thread only.
+ */
+public final class MatchQueue {
+    private static final Map<MinigameSettings, MatchQueue> queues = new EnumMap<>(MinigameSettings.class);
+
+    private final MinigameSettings settings;
+    private final List<MinigameLobbyGroup> groups = new ArrayList<>(); //In the order their regions were found
+
+    //Metrics
+    private static long matches = 0;
+    private static long overflowMatches = 0; //Started in another group's region
+    private static long pooledPlayers = 0; //Joined a match from another group's lobbies
+    private static long noRegion = 0; //Start attempts with every region of the minigame busy
+
+    private MatchQueue(MinigameSettings settings) {
+        this.settings = settings;
+    }
+
+    public static void register(MinigameLobbyGroup group) {
+        queues.computeIfAbsent(group.getSettings(), MatchQueue::new).groups.add(group);
+    }
+
+    static MatchQueue of(MinigameSettings settings) {
+        return queues.get(settings);
+    }
+
+    /**
+     * @return The region the group should play in next: its own if that is idle, else the idle region of another group
+     * that can't start a match alone (one with an arena ready if possible), or null if there is none
+     */
+    String findRegion(MinigameLobbyGroup group) {
+        if(!MinigameManager.isGameActive(group.getMinigameRegion())) {return group.getMinigameRegion();}
+        if(settings.isGameInLobby()) {return null;}
+
+        String found = null;
+        for(MinigameLobbyGroup other : groups) {
+            String regionID = other.getMinigameRegion();
+            if(other == group || MinigameManager.isGameActive(regionID)) {continue;}
+            if(other.isStarting() || other.playersWaiting() >= settings.getRequiredPlayers()) {continue;}//Can fill it alone
+            if(MinigameManager.hasReadyArena(regionID)) {return regionID;}
+            if(found == null) {found = regionID;}
+        }
+        return found;
+    }
+
+    /**
+     * @return The lobbies whose players the group's next match is made from: its own, plus for rebalanced teams those of
+     * every other group that is stuck (its region busy or too few players) and not already counting down to a start
+     */
+    List<MinigameLobby> pool(MinigameLobbyGroup group) {
+        if(!settings.isTeamRebalanced() || settings.isGameInLobby()) {return group.getLobbies();}
+
+        List<MinigameLobby> pool = new ArrayList<>(group.getLobbies());
+        for(MinigameLobbyGroup other : groups) {
+            if(other == group || other.isStarting() || other.playersWaiting() == 0) {continue;}
+            if(MinigameManager.isGameActive(other.getMinigameRegion()) || other.playersWaiting() < settings.getRequiredPlayers()) {
+                pool.addAll(other.getLobbies());
+            }
+        }
+        return pool;
+    }
+
+    MinigameLobbyGroup getGroup(String regionID) {
+        for(MinigameLobbyGroup group : groups) {
+            if(group.getMinigameRegion().equals(regionID)) {return group;}
+        }
+        return null;
+    }
+
+    //Called by MinigameManager once a region is free again. Its own group gets the first chance to use it.
+    public static void regionAvailable(String regionID, MinigameSettings settings) {
+        MatchQueue queue = queues.get(settings);
+        if(queue == null) {return;}
+        MinigameLobbyGroup owner = queue.getGroup(regionID);
+        if(owner != null) {owner.notifyGameAvailable();}
+
+        //Then the groups that have been waiting longest for a region of their own
+        List<MinigameLobbyGroup> waiting = new ArrayList<>();
+        for(MinigameLobbyGroup group : queue.groups) {
+            if(group != owner && group.isWaitingForRegion()) {waiting.add(group);}
+        }
+        waiting.sort(Comparator.comparing(MinigameLobbyGroup::getQueueStart, Comparator.nullsLast(Comparator.naturalOrder())));
+        for(MinigameLobbyGroup group : waiting) {
+            if(MinigameManager.isGameActive(regionID)) {return;}
+            group.notifyGameAvailable();
+        }
+    }
+
+    static void recordMatch(MinigameLobbyGroup group, String regionID, int pooled) {
+        matches++;
+        if(!group.getMinigameRegion().equals(regionID)) {overflowMatches++;}
+        pooledPlayers += pooled;
+    }
+
+    static void recordNoRegion() {
+        noRegion++;
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Matchmaking: "+matches+" matches, "+overflowMatches+" in another group's region, "+pooledPlayers+
+                " players pooled from other lobbies, "+noRegion+" starts waited for a free region");
+        return stats;
+    }
+}
@@ -1,15 +1,22 @@
 package minigame.lobby;
 
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.protection.regions.ProtectedCuboidRegion;
 import com.sk89q.worldguard.protection.regions.ProtectedRegion;
 import lombok.Getter;
 import minigame.Main;
 import minigame.game.Minigame;
 import minigame.game.MinigameManager;
+import minigame.game.GameEventBus;
 import minigame.player.PlayerManager;
+import minigame.util.BlockPos;
 import minigame.util.GlobalSettings;
+import minigame.util.WheelTask;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.World;
 import org.bukkit.block.Block;
+import org.bukkit.block.data.BlockData;
 import org.bukkit.block.data.Openable;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
@@ -17,7 +24,6 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
-import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scoreboard.DisplaySlot;
 import org.bukkit.scoreboard.Objective;
 import org.bukkit.scoreboard.Scoreboard;
@@ -27,7 +33,9 @@ import org.jetbrains.annotations.NotNull;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 public final class MinigameLobby implements Listener {
     @Getter private final String lobbyID;
@@ -37,6 +45,8 @@ public final class MinigameLobby implements Listener {
     private final Location exitCoords;
     @Getter private ArrayList<Player> players;
     private final Scoreboard gameInfo;
+    private ProtectedRegion doorArea; //The lobby area plus a 1 block margin, if this lobby has doors to open
+    private final Set<Long> openables = new LinkedHashSet<>(); //Packed positions of the gates/doors in doorArea
 
     public MinigameLobby(MinigameLobbyGroup group, String lobbyID, String teamName, Location exitCoords, ProtectedRegion lobbyArea) {
         this.lobbyID = lobbyID;
@@ -58,6 +68,14 @@ public final class MinigameLobby implements Listener {
         obj.setDisplaySlot(DisplaySlot.SIDEBAR);
 
         Bukkit.getServer().getPluginManager().registerEvents(this, Main.getInstance());
+        GameEventBus.register(this, lobbyArea);
+
+        if(group.getSettings().isCheckForOpenables()) {
+            doorArea = new ProtectedCuboidRegion(lobbyID + "_doors",
+                    lobbyArea.getMinimumPoint().subtract(1, 1, 1), lobbyArea.getMaximumPoint().add(1, 1, 1));
+            indexOpenables();
+            GameEventBus.registerDoors(this, doorArea);
+        }
     }
 
     private void joinLobby(@NotNull Player p) {
@@ -129,7 +147,7 @@ public final class MinigameLobby implements Listener {
             players = new ArrayList<>(group.getSettings().getMaxTeamSize());
         }
 
-        for(Player p : toRetain) {
+        for(Player p : players) {//Only our own; toRetain can hold Players of every lobby pooled into the match
             p.sendMessage("Sorry! You could not join the game due to a matchmaking imbalance.");
         }
 
@@ -145,45 +163,76 @@ public final class MinigameLobby implements Listener {
      * Opens all gates/doors within the lobby to allow players out. Closes them back after a specified amount of time.
      */
     protected void openLobby() {
-        System.out.println("Opening lobby doors");
-        //Find all Openables and add them to our collection to close later
-        List<Block> opened = new ArrayList<>();
-        Block b; Openable o;
-        for(int x = lobbyArea.getMinimumPoint().getBlockX()-1; x <= lobbyArea.getMaximumPoint().getBlockX()+1; x++) {
-            for(int y = lobbyArea.getMinimumPoint().getBlockY()-1; y <= lobbyArea.getMaximumPoint().getBlockY()+1; y++) {
-                for(int z = lobbyArea.getMinimumPoint().getBlockZ()-1; z <= lobbyArea.getMaximumPoint().getBlockZ()+1; z++) {
-                    b = GlobalSettings.getMinigameWorld().getBlockAt(x, y, z);
-                    if(b.getBlockData() instanceof Openable) {
-                        o = (Openable) b.getBlockData();
-                        System.out.println("Openable found: "+o.isOpen());
-                        if(!o.isOpen()) {
-                            opened.add(b);
-                            o.setOpen(true);
-                            b.setBlockData(o);
-                            b.getState().update();
-                        }
+        //Only the indexed Openables; any that were changed without a block event are skipped
+        List<Block> opened = new ArrayList<>(openables.size());
+        World world = GlobalSettings.getMinigameWorld();
+        for(long pos : openables) {
+            Block b = world.getBlockAt(BlockPos.x(pos), BlockPos.y(pos), BlockPos.z(pos));
+            BlockData data = b.getBlockData();
+            if(!(data instanceof Openable) || ((Openable) data).isOpen()) {continue;}
+            ((Openable) data).setOpen(true);
+            b.setBlockData(data);
+            opened.add(b);
+        }
+
+        //Close the Openables on a delay
+        new WheelTask() {
+            @Override
+            public void run() {
+                for(Block b : opened) {
+                    BlockData data = b.getBlockData();
+                    if(!(data instanceof Openable)) {continue;}//Broken while open
+                    ((Openable) data).setOpen(false);
+                    b.setBlockData(data);
+                }
+            }
+        }.runTaskLater(20 * GlobalSettings.getCloseLobbyDelaySeconds());
+    }
+
+    /**
+     * Finds every gate/door in the lobby area or the 1 block margin around it. Only done once; block events keep the
+     * index up to date afterwards.
+     */
+    private void indexOpenables() {
+        World world = GlobalSettings.getMinigameWorld();
+        BlockVector3 min = doorArea.getMinimumPoint();
+        BlockVector3 max = doorArea.getMaximumPoint();
+        for(int x = min.getBlockX(); x <= max.getBlockX(); x++) {
+            for(int y = min.getBlockY(); y <= max.getBlockY(); y++) {
+                for(int z = min.getBlockZ(); z <= max.getBlockZ(); z++) {
+                    if(world.getBlockAt(x, y, z).getBlockData() instanceof Openable) {
+                        openables.add(BlockPos.pack(x, y, z));
                     }
                 }
             }
         }
+    }
 
-        //Close the Openables on a delay
-        new BukkitRunnable() {
+    //Called by GameEventBus for blocks placed or broken in the lobby area or the margin around it
+    public void onBlockChange(@NotNull Block b) {
+        int x = b.getX(), y = b.getY(), z = b.getZ();
+        //Doors place and drop their other half after the event, and the event may yet be cancelled, so look next tick
+        new WheelTask() {
             @Override
             public void run() {
-                Openable o;
-                for(Block b : opened) {
-                    o = ((Openable)b.getBlockData());
-                    o.setOpen(false);
-                    b.setBlockData(o);
-                    b.getState().update();
+                for(int dy = -1; dy <= 1; dy++) {
+                    refreshOpenable(x, y + dy, z);
                 }
             }
-        }.runTaskLater(Main.getInstance(), 20 * GlobalSettings.getCloseLobbyDelaySeconds());
+        }.runTaskLater(1);
     }
 
-    @EventHandler
-    private void onMove(@NotNull PlayerMoveEvent e) {
+    private void refreshOpenable(int x, int y, int z) {
+        if(!doorArea.contains(x, y, z)) {return;}
+        if(GlobalSettings.getMinigameWorld().getBlockAt(x, y, z).getBlockData() instanceof Openable) {
+            openables.add(BlockPos.pack(x, y, z));
+        } else {
+            openables.remove(BlockPos.pack(x, y, z));
+        }
+    }
+
+    //Called by GameEventBus for moves into, out of or within this lobby, and for every move of its Players
+    public void onMove(@NotNull PlayerMoveEvent e) {
         if(e.getTo() == null || sameBlock(e.getFrom(), e.getTo())) {return;}
 
         if(MinigameManager.inGame(e.getPlayer())) {
@@ -223,6 +272,10 @@ public final class MinigameLobby implements Listener {
                 p.teleport(group.getGameExitCoords());
                 return false;
             }
+            if(!PlayerManager.isLoaded(p)) {
+                p.sendMessage(GlobalSettings.getProfileLoadingMsg());
+                return false;
+            }
             if(!PlayerManager.hasTokens(p, group.getSettings().getTokenCost())) {
                 p.sendMessage(GlobalSettings.getInsufficientTokensMsg(group.getSettings().getTokenCost()));
                 return false;
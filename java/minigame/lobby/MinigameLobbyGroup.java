@@ -1,15 +1,14 @@
 package minigame.lobby;
 
 import lombok.Getter;
-import minigame.Main;
 import minigame.game.MinigameManager;
 import minigame.game.MinigameSettings;
 import minigame.player.PlayerManager;
+import minigame.util.GlobalSettings;
 import minigame.util.MinigameTeam;
+import minigame.util.WheelTask;
 import org.bukkit.Location;
 import org.bukkit.entity.Player;
-import org.bukkit.scheduler.BukkitRunnable;
-import org.bukkit.scheduler.BukkitTask;
 
 import java.time.Instant;
 import java.util.ArrayList;
@@ -21,15 +20,18 @@ public final class MinigameLobbyGroup {
     @Getter private final String minigameRegion;
     @Getter private final MinigameSettings settings;
     @Getter private final Location gameExitCoords;
-    private BukkitTask timedQueue;
-    private BukkitTask startGameDelay;
+    private WheelTask timedQueue;
+    private WheelTask startGameDelay;
+    private WheelTask aiQueue;
     @Getter private Instant queueStart;
+    private boolean waitingForRegion = false;
 
     public MinigameLobbyGroup(int size, String minigameRegion, Location gameExitCoords, MinigameSettings settings) {
         this.lobbies = new ArrayList<>(size);
         this.minigameRegion = minigameRegion;
         this.settings = settings;
         this.gameExitCoords = gameExitCoords;
+        MatchQueue.register(this);
     }
 
     public void add(MinigameLobby lobby) {
@@ -37,22 +39,19 @@ public final class MinigameLobbyGroup {
     }
 
     protected boolean startLobby(boolean delay, boolean failSilent, boolean forceStart) {
-        //Game has already launched, players will have to wait. Restart the timed queue if needed.
-        if(MinigameManager.isGameActive(minigameRegion)) {
-            restartQueue();
-            return false;
-        }
+        MatchQueue queue = MatchQueue.of(settings);
+        List<MinigameLobby> pool = queue.pool(this);
 
         //Check that we have enough players
         int totalPlayers = 0;
-        for(MinigameLobby lobby : lobbies) {
+        for(MinigameLobby lobby : pool) {
             if(!settings.isTeamRebalanced() && lobby.getPlayers().size() < settings.getMinTeamSize()) {return false;}
             totalPlayers += lobby.getPlayers().size();
         }
 
         if(totalPlayers < settings.getRequiredPlayers()) {
             if(!failSilent) {
-                for(MinigameLobby lobby : lobbies) {
+                for(MinigameLobby lobby : pool) {
                     for(Player p : lobby.getPlayers()) {
                         p.sendMessage("Sorry, there are not enough players in the lobby to start a match at this time.");
                     }
@@ -64,9 +63,18 @@ public final class MinigameLobbyGroup {
 
         if(!forceStart && totalPlayers < settings.getMaxPlayers()) {return false;}//Don't let player events start the game prematurely
 
+        //Every region of this minigame has a game running, players will have to wait. Restart the timed queue if needed.
+        String regionID = queue.findRegion(this);
+        if(regionID == null) {
+            waitingForRegion = true;
+            MatchQueue.recordNoRegion();
+            restartQueue();
+            return false;
+        }
+
         //Start a thread to call this method again after the delay specified
-        if(delay && settings.getLobbyDelaySeconds() > 0 && (startGameDelay == null || startGameDelay.isCancelled())) {
-            startGameDelay = new BukkitRunnable() {
+        if(delay && settings.getLobbyDelaySeconds() > 0 && !isStarting()) {
+            startGameDelay = new WheelTask() {
                 private int counter = settings.getLobbyDelaySeconds();
 
                 @Override
@@ -75,7 +83,7 @@ public final class MinigameLobbyGroup {
                         startLobby(false, false, true);
                         cancel();
                     } else {
-                        for(MinigameLobby lobby : lobbies) {
+                        for(MinigameLobby lobby : MatchQueue.of(settings).pool(MinigameLobbyGroup.this)) {
                             for(Player p : lobby.getPlayers()) {
                                 p.sendMessage("Game starting in "+counter+"...");
                             }
@@ -83,16 +91,21 @@ public final class MinigameLobbyGroup {
                         counter--;
                     }
                 }
-            }.runTaskTimer(Main.getInstance(), 0, 20);
+            }.runTaskTimer(0, 20);
             return true;
         }
 
+        int pooledPlayers = 0;
+        for(MinigameLobby lobby : pool) {
+            if(lobby.getGroup() != this) {pooledPlayers += lobby.getPlayers().size();}
+        }
+
         //Start the game
-        List<MinigameTeam> teams = new ArrayList<>(lobbies.size());
+        List<MinigameTeam> teams = new ArrayList<>(pool.size());
         ArrayList<Player> retainedPlayers = new ArrayList<>();
         //If we don't need to rebalance teams, drain each lobby to a team
         if(!settings.isTeamRebalanced()) {
-            for (MinigameLobby lobby : lobbies) {
+            for (MinigameLobby lobby : pool) {
                 //TODO utilize team names?
                 //TODO unregister scoreboards?
                 teams.add(new MinigameTeam(lobby.getLobbyID(), lobby.getPlayers(), settings));
@@ -101,9 +114,8 @@ public final class MinigameLobbyGroup {
         } else {
             //Else ignore the lobbies and work with the list of players itself
             ArrayList<Player> allPlayers = new ArrayList<>();
-            for(MinigameLobby lobby : lobbies) {
+            for(MinigameLobby lobby : pool) {
                 allPlayers.addAll(lobby.getPlayers());
-                lobby.clearLobby();
             }
 
             //Calculate the team size
@@ -114,45 +126,60 @@ public final class MinigameLobbyGroup {
             }
 
             if(settings.isEqualTeamSizeForced()) {
-                while(allPlayers.size() % teamSize != 0) {
+                while(allPlayers.size() > teamSize * amtTeams) {
                     retainedPlayers.add(allPlayers.remove(allPlayers.size()-1));
                 }
             }
 
             //Clear our lobbies of the taken players
-            for(MinigameLobby lobby : lobbies) {
+            for(MinigameLobby lobby : pool) {
                 lobby.clearLobby(retainedPlayers);
             }
 
-            //Sort our list of players dependent on the chosen method in settings
-            ArrayList<Player> sortedPlayers;
+            //Any Players left over from an even split make some teams one larger
+            int[] sizes = new int[amtTeams];
+            List<List<Player>> teamPlayers = new ArrayList<>(amtTeams);
+            for(int i = 0; i < amtTeams; i++) {
+                sizes[i] = allPlayers.size() / amtTeams + (i < allPlayers.size() % amtTeams ? 1 : 0);
+                teamPlayers.add(new ArrayList<>(sizes[i]));
+            }
+
+            //Split our list of players dependent on the chosen method in settings
             if(settings.isRankBalanced()) {
-                sortedPlayers = new ArrayList<>(allPlayers.size());
-                allPlayers.sort((o1, o2) -> (int) (PlayerManager.getHighScore(o1, settings.name()) - PlayerManager.getHighScore(o2, settings.name())));
-                //TODO I have no idea how to do this without brute forcing. An odd number of teams and/or uneven distribution of skill
-                //TODO makes this a very difficult problem to solve. This is a temporary, flawed algorithm instead.
-                for(int i = 0; i < allPlayers.size(); i+=2) {
-                    sortedPlayers.add(allPlayers.get(i));
+                double[] ratings = new double[allPlayers.size()];
+                for(int i = 0; i < ratings.length; i++) {
+                    ratings[i] = PlayerManager.getHighScore(allPlayers.get(i), settings.name());
                 }
-                int end = allPlayers.size() % 2 == 0 ? allPlayers.size()-1 : allPlayers.size()-2;
-                for(int i = end; i >= 0; i-=2) {
-                    sortedPlayers.add(allPlayers.get(i));
+                int[] assigned = TeamBalancer.partition(ratings, sizes);
+                for(int i = 0; i < assigned.length; i++) {
+                    teamPlayers.get(assigned[i]).add(allPlayers.get(i));
                 }
             } else {
                 Collections.shuffle(allPlayers);
-                sortedPlayers = allPlayers;
+                int next = 0;
+                for(int i = 0; i < amtTeams; i++) {
+                    for(int j = 0; j < sizes[i]; j++) {
+                        teamPlayers.get(i).add(allPlayers.get(next++));
+                    }
+                }
             }
 
-            //Create our teams with our new ordered lists
-            for(int i = 0; i < amtTeams; i++) {
-                List<Player> sublist = sortedPlayers.subList(teamSize*i, teamSize*(i+1));
-                teams.add(new MinigameTeam(sublist.get(0).getName(), new ArrayList<>(sublist), settings));
+            //Create our teams with our new lists
+            for(List<Player> members : teamPlayers) {
+                teams.add(new MinigameTeam(members.get(0).getName(), members, settings));
             }
         }
 
 
         //Start the game
-        MinigameManager.startGame(settings, teams, minigameRegion, gameExitCoords);
+        waitingForRegion = false;
+        MatchQueue.recordMatch(this, regionID, pooledPlayers);
+        MinigameManager.startGame(settings, teams, regionID, queue.getGroup(regionID).getGameExitCoords());
+
+        //Stop the timers of any other groups whose players were all taken
+        for(MinigameLobby lobby : pool) {
+            if(lobby.getGroup() != this) {lobby.getGroup().notifyPlayerChange(false);}
+        }
 
         //Restart the queue if there are still players remaining in the lobby
         if(!retainedPlayers.isEmpty()) {
@@ -167,14 +194,14 @@ public final class MinigameLobbyGroup {
     private void restartQueue() {
         int maxWaitTime = settings.getMaxWaitTime();
         if(maxWaitTime >= 0 && (timedQueue == null || timedQueue.isCancelled())) {
-            timedQueue = new BukkitRunnable() {
+            timedQueue = new WheelTask() {
                 @Override
                 public void run() {
                     if(startLobby(true, false, true)) {
                         cancel();
                     }
                 }
-            }.runTaskTimer(Main.getInstance(), 20 * maxWaitTime,maxWaitTime == 0 ? 1 : 20 * maxWaitTime);
+            }.runTaskTimer(20 * maxWaitTime, maxWaitTime == 0 ? 1 : 20 * maxWaitTime);
             queueStart = Instant.now();
         }
 
@@ -183,13 +210,75 @@ public final class MinigameLobbyGroup {
     public void notifyPlayerChange(boolean joined) {
         if(joined && playersWaiting() == 1) {
             restartQueue();
+            startAIQueue();
         } else if(!joined && playersWaiting() == 0) {
             if(timedQueue != null) timedQueue.cancel();
             if(startGameDelay != null) startGameDelay.cancel();
+            if(aiQueue != null) aiQueue.cancel();
+            waitingForRegion = false;
+        }
+    }
+
+    /**
+     * Matches a Player left waiting alone against the computer, for games with an AI opponent
+     */
+    private void startAIQueue() {
+        if(settings.getAiDifficulty() == null || lobbies.size() != 2 || (aiQueue != null && !aiQueue.isCancelled())) {return;}
+        aiQueue = new WheelTask() {
+            @Override
+            public void run() {
+                if(playersWaiting() != 1) {//Matched against a Player, or left
+                    cancel();
+                } else if(!isStarting() && startAIGame()) {
+                    cancel();
+                }
+            }
+        }.runTaskTimer(20 * GlobalSettings.getAiOpponentWaitSeconds(), 20 * 5);
+    }
+
+    private boolean startAIGame() {
+        String regionID = MatchQueue.of(settings).findRegion(this);
+        if(regionID == null) {return false;}//Try again shortly
+
+        //The empty lobby's team is played by the AI
+        List<MinigameTeam> teams = new ArrayList<>(lobbies.size());
+        for(MinigameLobby lobby : lobbies) {
+            for(Player p : lobby.getPlayers()) {
+                p.sendMessage("Nobody else turned up, so you'll be playing against the computer!");
+            }
+            teams.add(new MinigameTeam(lobby.getLobbyID(), lobby.getPlayers(), settings));
+            lobby.clearLobby();
         }
+        if(timedQueue != null) timedQueue.cancel();
+        if(startGameDelay != null) startGameDelay.cancel();
+
+        MatchQueue.recordMatch(this, regionID, 0);
+        MinigameManager.startGame(settings, teams, regionID, MatchQueue.of(settings).getGroup(regionID).getGameExitCoords());
+        return true;
+    }
+
+    //Called once a game region is free again, so waiting players don't have to wait for the timed queue
+    void notifyGameAvailable() {
+        if(playersWaiting() > 0) {
+            startLobby(true, true, waitingForRegion);
+        }
+    }
+
+    //Whether this group's last start was only held back by every region being busy
+    boolean isWaitingForRegion() {
+        return waitingForRegion;
+    }
+
+    //Whether this group is counting down to a start
+    boolean isStarting() {
+        return startGameDelay != null && !startGameDelay.isCancelled();
+    }
+
+    List<MinigameLobby> getLobbies() {
+        return lobbies;
     }
 
-    private int playersWaiting() {
+    int playersWaiting() {
         int count = 0;
         for(MinigameLobby lobby : lobbies) {
             count += lobby.getPlayers().size();
@@ -0,0 +1,216 @@
+package minigame.lobby;
+
+import minigame.util.GlobalSettings;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits players into teams whose average ratings are as close together as possible. Players are dealt strongest first
+ * to whichever team is furthest below its share of the total rating, then pairs of players on different teams are
+ * swapped for as long as a swap brings the team averages closer together (or the time limit runs out).
+ * Works on a plain array of ratings, so callers read each Player's rating once. Main thread only.
+ */
+public final class TeamBalancer {
+    private static final double EPSILON = 1e-9;
+
+    //Metrics
+    private static long runs = 0;
+    private static long players = 0;
+    private static long swaps = 0;
+    private static long timeouts = 0;
+    private static long nanosTotal = 0;
+    private static long nanosMax = 0;
+    private static double greedySpreadTotal = 0;
+    private static double finalSpreadTotal = 0;
+
+    /**
+     * @param ratings Each player's rating
+     * @param sizes How many players go on each team; must add up to ratings.length
+     * @return The team each player was put on, as an index into sizes
+     */
+    public static int[] partition(double[] ratings, int[] sizes) {
+        long start = System.nanoTime();
+        Split split = new Split(ratings, sizes);
+        double greedySpread = split.spread();
+        boolean finished = split.refine(start + TimeUnit.MILLISECONDS.toNanos(GlobalSettings.getTeamBalanceMillis()));
+        long nanos = System.nanoTime() - start;
+
+        runs++;
+        players += ratings.length;
+        swaps += split.swaps;
+        if(!finished) {timeouts++;}
+        nanosTotal += nanos;
+        nanosMax = Math.max(nanosMax, nanos);
+        greedySpreadTotal += greedySpread;
+        finalSpreadTotal += split.spread();
+        return split.team;
+    }
+
+    /**
+     * Splits made-up lobbies of normally distributed ratings, without touching the live metrics, so it is safe to run
+     * off the main thread
+     * @return Lines describing the time taken and how even the teams came out
+     */
+    public static List<String> benchmark(int playerCount, int teamCount, int trials) {
+        Random random = new Random(playerCount * 31L + teamCount);
+        int[] sizes = new int[teamCount];
+        for(int t = 0; t < teamCount; t++) {
+            sizes[t] = playerCount / teamCount + (t < playerCount % teamCount ? 1 : 0);
+        }
+
+        long nanosSum = 0, nanosWorst = 0, swapSum = 0;
+        int unfinished = 0;
+        double arrivalSpread = 0, greedySpread = 0, finalSpread = 0;
+        for(int i = 0; i < trials; i++) {
+            double[] ratings = new double[playerCount];
+            for(int j = 0; j < playerCount; j++) {
+                ratings[j] = GlobalSettings.getStartingElo() + random.nextGaussian() * 200;
+            }
+            arrivalSpread += Split.spread(ratings, sizes);
+
+            long start = System.nanoTime();
+            Split split = new Split(ratings, sizes);
+            greedySpread += split.spread();
+            if(!split.refine(start + TimeUnit.MILLISECONDS.toNanos(GlobalSettings.getTeamBalanceMillis()))) {unfinished++;}
+            long nanos = System.nanoTime() - start;
+            nanosSum += nanos;
+            nanosWorst = Math.max(nanosWorst, nanos);
+            swapSum += split.swaps;
+            finalSpread += split.spread();
+        }
+
+        List<String> results = new ArrayList<>();
+        results.add("Team balancing benchmark: "+trials+" splits of "+playerCount+" players into "+teamCount+" teams");
+        results.add("Time: avg "+TimeUnit.NANOSECONDS.toMicros(nanosSum / trials)+"us, max "+
+                TimeUnit.NANOSECONDS.toMicros(nanosWorst)+"us, "+unfinished+" hit the time limit");
+        results.add("Spread of team averages: "+format(arrivalSpread / trials)+" in join order, "+format(greedySpread / trials)+
+                " greedy, "+format(finalSpread / trials)+" after "+format((double) swapSum / trials)+" swaps");
+        return results;
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Team balancing: "+runs+" splits, avg "+(runs == 0 ? 0 : players / runs)+" players, "+swaps+" swaps, "+
+                timeouts+" hit the time limit");
+        stats.add("Team balancing: avg "+(runs == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanosTotal / runs))+"us, max "+
+                TimeUnit.NANOSECONDS.toMicros(nanosMax)+"us, avg spread of team averages "+
+                format(runs == 0 ? 0 : greedySpreadTotal / runs)+" greedy -> "+format(runs == 0 ? 0 : finalSpreadTotal / runs));
+        return stats;
+    }
+
+    private static String format(double d) {
+        return String.format("%.2f", d);
+    }
+
+    //One split in progress
+    private static final class Split {
+        private final double[] ratings;
+        private final int[] sizes;
+        private final int[] team;
+        private final double[] sums; //Total rating of each team
+        private final double mean; //Average rating of every player, which swaps never change
+        private int swaps = 0;
+
+        private Split(double[] ratings, int[] sizes) {
+            this.ratings = ratings;
+            this.sizes = sizes;
+            this.team = new int[ratings.length];
+            this.sums = new double[sizes.length];
+
+            double total = 0;
+            for(double rating : ratings) {
+                total += rating;
+            }
+            mean = ratings.length == 0 ? 0 : total / ratings.length;
+
+            //Strongest first, each to the team with the most room below its share of the total
+            Integer[] order = new Integer[ratings.length];
+            for(int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(ratings[b], ratings[a]));
+            int[] filled = new int[sizes.length];
+            for(int i : order) {
+                int best = -1;
+                double bestRoom = 0;
+                for(int t = 0; t < sizes.length; t++) {
+                    if(filled[t] == sizes[t]) {continue;}
+                    double room = mean * sizes[t] - sums[t];
+                    if(best == -1 || room > bestRoom) {
+                        best = t;
+                        bestRoom = room;
+                    }
+                }
+                team[i] = best;
+                sums[best] += ratings[i];
+                filled[best]++;
+            }
+        }
+
+        /**
+         * Makes every swap between teams that lowers the sum of squared distances of the team averages from the mean,
+         * until none is left
+         * @return False if the deadline passed first
+         */
+        private boolean refine(long deadline) {
+            boolean improved = true;
+            while(improved) {
+                improved = false;
+                for(int i = 0; i < ratings.length; i++) {
+                    if(System.nanoTime() > deadline) {return false;}
+                    for(int j = i + 1; j < ratings.length; j++) {
+                        int a = team[i], b = team[j];
+                        double d = ratings[j] - ratings[i];
+                        if(a == b || d == 0) {continue;}
+
+                        double oldA = sums[a] / sizes[a] - mean, oldB = sums[b] / sizes[b] - mean;
+                        double newA = (sums[a] + d) / sizes[a] - mean, newB = (sums[b] - d) / sizes[b] - mean;
+                        if(newA * newA + newB * newB < oldA * oldA + oldB * oldB - EPSILON) {
+                            team[i] = b;
+                            team[j] = a;
+                            sums[a] += d;
+                            sums[b] -= d;
+                            swaps++;
+                            improved = true;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        //Standard deviation of the team averages around the mean rating
+        private double spread() {
+            double squares = 0;
+            for(int t = 0; t < sizes.length; t++) {
+                double off = sums[t] / sizes[t] - mean;
+                squares += off * off;
+            }
+            return sizes.length == 0 ? 0 : Math.sqrt(squares / sizes.length);
+        }
+
+        //The same figure for players dealt out in the order given
+        private static double spread(double[] ratings, int[] sizes) {
+            double total = 0;
+            for(double rating : ratings) {
+                total += rating;
+            }
+            double mean = total / ratings.length;
+            double squares = 0;
+            int i = 0;
+            for(int size : sizes) {
+                double sum = 0;
+                for(int end = i + size; i < end; i++) {
+                    sum += ratings[i];
+                }
+                double off = sum / size - mean;
+                squares += off * off;
+            }
+            return Math.sqrt(squares / sizes.length);
+        }
+    }
+}
@@ -21,6 +21,9 @@ public class PlayerData {
 
     private HashMap<String, Double> gameRatings = new HashMap<>();
 
+    private volatile boolean loaded;//False while the profile is still being read from the database
+    private int pastVisits;
+
     private String[] lastSignText;//Temp variable to update Scoreboard
 
     public void subtractTokens(int amt) {
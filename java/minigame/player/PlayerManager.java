@@ -15,7 +15,9 @@ import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.entity.FoodLevelChangeEvent;
 import org.bukkit.event.player.AsyncPlayerChatEvent;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.BookMeta;
@@ -25,14 +27,49 @@ import org.bukkit.scoreboard.Scoreboard;
 
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PlayerManager implements Listener {
-    private static final HashMap<UUID, PlayerData> playerData = new HashMap<>();
+    private static final Map<UUID, PlayerData> playerData = new ConcurrentHashMap<>();
     private static final HashMap<UUID, Scoreboard> playerBoard = new HashMap<>();
 
+    //Profiles loaded on the async login thread, waiting for their Player to finish joining
+    private static final Map<UUID, PlayerData> preloaded = new ConcurrentHashMap<>();
+    //Saves still being written, so a quick rejoin never loads a stale profile
+    private static final Map<UUID, CompletableFuture<Void>> pendingSaves = new ConcurrentHashMap<>();
+
     public static void enable() {
         Bukkit.getServer().getPluginManager().registerEvents(new PlayerManager(), Main.getInstance());
+        for(Player p : Bukkit.getOnlinePlayers()) {//Plugin reloaded with Players online
+            loadPlayerAsync(p);
+        }
+    }
+
+    //Saves every online Player before the plugin goes down. Blocks, so only call on shutdown.
+    public static void disable() {
+        for(Player p : Bukkit.getOnlinePlayers()) {
+            savePlayer(p);
+        }
+        for(CompletableFuture<Void> save : pendingSaves.values()) {
+            save.join();
+        }
+    }
+
+    /**
+     * Returns whether this Player's profile has finished loading from the database.
+     * Until then the Player should not be allowed to spend tokens or join a lobby.
+     * @param p Player to check
+     */
+    public static boolean isLoaded(Player p) {
+        return isLoaded(p.getUniqueId());
+    }
+
+    public static boolean isLoaded(UUID p) {
+        PlayerData pd = playerData.get(p);
+        return pd != null && pd.isLoaded();
     }
 
     /**
@@ -54,6 +91,7 @@ public class PlayerManager implements Listener {
         Scoreboard board = playerBoard.get(p.getUniqueId());
         Objective obj = board.getObjective(p.getName());
         PlayerData pd = playerData.get(p.getUniqueId());
+        if(pd == null || !pd.isLoaded()) {return;}
 
         String[] lastText = pd.getLastSignText();
         String[] newText = new String[] {
@@ -119,6 +157,7 @@ public class PlayerManager implements Listener {
 
     public static boolean hasTokens(Player p, int amt) {
         PlayerData pd = playerData.get(p.getUniqueId());
+        if(pd == null || !pd.isLoaded()) {return false;}
         return pd.isGamePassActive() || amt < pd.getTokens();
     }
 
@@ -154,6 +193,10 @@ public class PlayerManager implements Listener {
     }
 
     public static boolean adminCommand(Player admin, Player victim, String field, int change, boolean relative) {
+        if(!isLoaded(victim)) {
+            admin.sendMessage(victim.getName()+"'s profile is still loading, please try again in a moment.");
+            return true;
+        }
         PlayerData pd = playerData.get(victim.getUniqueId());
         int amt = change + (relative? pd.getTokens() : 0);
         switch(field) {
@@ -184,38 +227,113 @@ public class PlayerManager implements Listener {
         return true;
     }
 
+    /**
+     * Saves the Player's profile on a worker thread and forgets it. Profiles that never finished loading are
+     * skipped so an empty PlayerData can never overwrite the database.
+     * @param p Player to save
+     */
     public static void savePlayer(Player p) {
-        InputOutputManager.savePlayer(p, playerData.get(p.getUniqueId()));
+        UUID uuid = p.getUniqueId();
+        PlayerData pd = playerData.remove(uuid);
+        if(pd == null || !pd.isLoaded()) {return;}
+        CompletableFuture<Void> save = InputOutputManager.savePlayerAsync(uuid, p.getName(), pd);
+        pendingSaves.put(uuid, save);
+        save.whenComplete((v, t) -> pendingSaves.remove(uuid, save));
     }
 
-    public static boolean loadPlayer(Player p) {
+    /**
+     * Loads a Player's profile on a worker thread, for Players who are already online (e.g. after a reload).
+     * The Player stays in the "loading" state until the result is handed back to the main thread.
+     * @param p Player to load
+     */
+    private static void loadPlayerAsync(Player p) {
+        playerData.put(p.getUniqueId(), new PlayerData());
         PlayerData pd = new PlayerData();
-        playerData.put(p.getUniqueId(), pd);
-        int pastVisits = InputOutputManager.loadPlayer(p, pd);
-        if(pastVisits == 0) {
+        InputOutputManager.loadPlayerAsync(p.getUniqueId(), p.getName(), pd).thenAccept(pastVisits ->
+            Bukkit.getScheduler().runTask(Main.getInstance(), () -> {
+                if(!p.isOnline()) {return;}
+                if(pastVisits < 0) {
+                    p.kickPlayer(getLoadFailedMessage());
+                    return;
+                }
+                pd.setPastVisits(pastVisits);
+                pd.setLoaded(true);
+                playerData.put(p.getUniqueId(), pd);
+                welcomePlayer(p, pd);
+                updateScoreboard(p);
+            })
+        );
+    }
+
+    private static void welcomePlayer(Player p, PlayerData pd) {
+        if(pd.getPastVisits() == 0) {
             p.sendMessage(GlobalSettings.getFirstTimeMessage());
             int awardTokens = GlobalSettings.getFirstJoinTokenAward();
             pd.setTokens(awardTokens);
             p.sendMessage("You have been awarded "+awardTokens+" tokens for joining the server! Enjoy!");
             setStartingInventory(p);
-        } else if(pastVisits > 0) {
+        } else {
             p.sendMessage(GlobalSettings.getWelcomeMessage());
             setStartingInventory(p);//TODO remove
         }
-        return pastVisits >= 0;
+    }
+
+    private static String getLoadFailedMessage() {
+        return "Your profile could not be loaded by our server :(" +
+                " Please try again later or contact us at our website: "+GlobalSettings.getWebsiteAddress();
     }
 
     /*
         Player Events
      */
 
+    /**
+     * Loads the profile on the async login thread, so the main thread never waits on the database.
+     * Runs last so we don't load profiles for logins another plugin is about to deny.
+     */
+    @EventHandler(priority = EventPriority.HIGHEST)
+    private void onPreLogin(AsyncPlayerPreLoginEvent e) {
+        if(e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {return;}
+        UUID uuid = e.getUniqueId();
+        CompletableFuture<Void> save = pendingSaves.get(uuid);
+        if(save != null) {save.join();}
+
+        PlayerData pd = new PlayerData();
+        int pastVisits = InputOutputManager.loadPlayer(uuid, e.getName(), pd);
+        if(pastVisits < 0) {
+            e.disallow(AsyncPlayerPreLoginEvent.Result.KICK_OTHER, getLoadFailedMessage());
+            return;
+        }
+        pd.setPastVisits(pastVisits);
+        pd.setLoaded(true);
+        preloaded.put(uuid, pd);
+    }
+
+    //A monitor denied the login after we loaded the profile
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onPreLoginResult(AsyncPlayerPreLoginEvent e) {
+        if(e.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            preloaded.remove(e.getUniqueId());
+        }
+    }
+
+    //Whitelist, bans or a full server can still turn the Player away after the profile was preloaded
+    @EventHandler(priority = EventPriority.MONITOR)
+    private void onLogin(PlayerLoginEvent e) {
+        if(e.getResult() != PlayerLoginEvent.Result.ALLOWED) {
+            preloaded.remove(e.getPlayer().getUniqueId());
+        }
+    }
+
     @EventHandler(priority = EventPriority.LOWEST)//First
     private void onPlayerJoin(PlayerJoinEvent e) {
         Player p = e.getPlayer();
-        if(!PlayerManager.loadPlayer(p)) {
-            p.kickPlayer("Your profile could not be loaded by our server :(" +
-                    " Please try again later or contact us at our website: "+GlobalSettings.getWebsiteAddress());
-            return;
+        PlayerData pd = preloaded.remove(p.getUniqueId());
+        if(pd == null) {
+            loadPlayerAsync(p);
+        } else {
+            playerData.put(p.getUniqueId(), pd);
+            welcomePlayer(p, pd);
         }
         updateOnlineCount();
     }
@@ -223,6 +341,7 @@ public class PlayerManager implements Listener {
     @EventHandler(priority = EventPriority.HIGHEST)//Last
     private void onPlayerQuit(PlayerQuitEvent e) {
         PlayerManager.savePlayer(e.getPlayer());
+        playerBoard.remove(e.getPlayer().getUniqueId());
         updateOnlineCount();
     }
 
@@ -0,0 +1,40 @@
+package minigame.util;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Packs block coordinates into a single long, so game code can pass positions around without allocating.
+ * Uses the same layout as Minecraft: 26 bits of x, 26 bits of z and 12 bits of y.
+ */
+public final class BlockPos {
+    //Equal to pack(33554431, -1, -1), which is outside any world border
+    public static final long NONE = Long.MAX_VALUE;
+
+    private BlockPos() {}
+
+    public static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    public static int x(long pos) {return (int) (pos >> 38);}
+    public static int y(long pos) {return (int) (pos << 52 >> 52);}
+    public static int z(long pos) {return (int) (pos << 26 >> 38);}
+
+    public static long offset(long pos, int dx, int dy, int dz) {
+        return pack(x(pos) + dx, y(pos) + dy, z(pos) + dz);
+    }
+
+    public static long of(@NotNull Block b) {return pack(b.getX(), b.getY(), b.getZ());}
+    public static long of(@NotNull Location loc) {return pack(loc.getBlockX(), loc.getBlockY(), loc.getBlockZ());}
+
+    public static Location toLocation(World world, long pos) {return new Location(world, x(pos), y(pos), z(pos));}
+    public static BlockVector3 toVector(long pos) {return BlockVector3.at(x(pos), y(pos), z(pos));}
+
+    public static String toString(long pos) {
+        return pos == NONE ? "none" : "("+x(pos)+", "+y(pos)+", "+z(pos)+")";
+    }
+}
@@ -7,13 +7,29 @@ import org.bukkit.World;
 
 public class GlobalSettings {
     @Getter private static final String schematicsDirectory = "plugins/WorldEdit/schematics/";
+    @Getter private static final boolean schematicCacheSoft = false; //Let the JVM evict cached schematics under memory pressure
+    @Getter private static final int arenaBuildMillisPerTick = 10; //Time each tick may spend pasting a new arena
+    @Getter private static final int restoreBlocksPerTick = 2000; //Max changed blocks put back per tick when resetting an arena
     @Getter private static final String defaultLobbyMsg = null;
+    @Getter private static final int teamBalanceMillis = 5; //Max time spent swapping players between rank-balanced teams
+    @Getter private static final int aiOpponentWaitSeconds = 30; //How long a lone Player waits before playing the computer
+    @Getter private static final boolean replaysRecorded = true; //Log every game so it can be watched back with /minigamereplay
+    @Getter private static final String replayDirectory = "plugins/MinigameManager/replays/";
+    @Getter private static final int replayChunkBytes = 8192; //Replay log buffered per game before it is handed to the writer thread
     @Getter private static final boolean useDatabase = true; //TODO unused
     @Getter private static final String databaseAddress = "localhost";
     @Getter private static final String databaseName = "test_database";
     @Getter private static final String databaseUsername = "root";
     @Getter private static final String databasePassword = "password";
     @Getter private static final String databaseTablePrefix = "minigame";
+    @Getter private static final int databasePoolSize = 6; //Save writer + profile workers + concurrent logins
+    @Getter private static final int databaseTimeoutSeconds = 10; //Max wait for a free pooled connection
+    @Getter private static final int databaseValidateAfterSeconds = 30; //Idle connections are pinged before reuse after this
+    @Getter private static final int databaseMaxLifetimeMinutes = 30; //Recycle connections well before MySQL's wait_timeout
+    @Getter private static final int saveQueueCapacity = 256; //Finished games waiting to be written before a warning is logged
+    @Getter private static final int saveBatchSize = 16; //Max finished games written per transaction
+    @Getter private static final int saveFlushTimeoutSeconds = 30;
+    @Getter private static final int profileWorkerThreads = 2; //Threads loading/saving player profiles off the main thread
     @Getter private static final String serverName = "CraftyCheese";
     @Getter private static final String gamePassName = "CraftyCheese Game Pass";
     @Getter private static final String welcomeMessage = "Welcome to the "+serverName+" Arcade! Feel free to explore or teleport via the book to get right into a game!";
@@ -35,4 +51,5 @@ public class GlobalSettings {
         return Bukkit.getServer().getWorlds().get(0);
     }
     public static String getInsufficientTokensMsg(int amt) {return "Sorry, you need "+amt+" tokens to play this minigame.";}
+    public static String getProfileLoadingMsg() {return "Your profile is still loading, please try again in a moment.";}
 }
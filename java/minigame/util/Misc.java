@@ -20,30 +20,6 @@ public class Misc {
                 .collect(Collectors.joining(" "));
     }
 
-    /**
-     * Returns the value of two Number objects added together without truncation or rounding,
-     * retaining the smallest data-size result possible
-     * @param n1 Number 1
-     * @param n2 Number 2
-     * @return n1 + n2
-     */
-    public static Number add(Number n1, Number n2) {
-        if(n1 instanceof Double || n2 instanceof Double) {
-            return n1.doubleValue() + n2.doubleValue();
-        } else if(n1 instanceof Float || n2 instanceof Float) {
-            return n1.floatValue() + n2.floatValue();
-        } else if(n1 instanceof Long || n2 instanceof Long) {
-            return n1.longValue() + n2.longValue();
-        } else if(n1 instanceof Integer || n2 instanceof Integer) {
-            return n1.intValue() + n2.intValue();
-        } else if(n1 instanceof Short || n2 instanceof Short) {
-            return n1.shortValue() + n2.shortValue();
-        } else if(n1 instanceof Byte || n2 instanceof Byte) {
-            return n1.byteValue() + n2.byteValue();
-        }
-        return n1.doubleValue() + n2.doubleValue();
-    }
-
     public static String color(String toColor) {
         return ChatColor.translateAlternateColorCodes('&', toColor);
     }
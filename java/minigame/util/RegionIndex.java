@@ -0,0 +1,134 @@
+package minigame.util;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldguard.protection.regions.ProtectedRegion;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chunk-keyed spatial index of WorldGuard regions. Each region is filed under every chunk its bounding box touches,
+ * so finding the regions at a block only tests the few regions near it instead of every region on the server.
+ * Chunk cells live in a small open-addressing table keyed by the packed chunk coordinates, so lookups don't box.
+ * Main thread only.
+ * @param <T> Whatever owns each region
+ */
+public class RegionIndex<T> {
+    private long[] keys = new long[64];
+    private Object[] cells = new Object[64];//List<Entry<T>> per chunk, null for an empty slot
+    private int usedCells = 0;
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+
+    public void add(ProtectedRegion region, T owner) {
+        if(entries.containsKey(owner)) {remove(owner);}
+        Entry<T> entry = new Entry<>(region, owner);
+        entries.put(owner, entry);
+        for(int cx = entry.minX >> 4; cx <= entry.maxX >> 4; cx++) {
+            for(int cz = entry.minZ >> 4; cz <= entry.maxZ >> 4; cz++) {
+                getOrCreateCell(chunkKey(cx, cz)).add(entry);
+            }
+        }
+    }
+
+    public void remove(T owner) {
+        Entry<T> entry = entries.remove(owner);
+        if(entry == null) {return;}
+        //Emptied cells are kept; the same arenas are reused game after game
+        for(int cx = entry.minX >> 4; cx <= entry.maxX >> 4; cx++) {
+            for(int cz = entry.minZ >> 4; cz <= entry.maxZ >> 4; cz++) {
+                List<Entry<T>> cell = getCell(chunkKey(cx, cz));
+                if(cell != null) {cell.remove(entry);}
+            }
+        }
+    }
+
+    /**
+     * Adds every owner whose region contains the given block to out, skipping any already in it
+     * @return The number of owners added
+     */
+    public int collect(int x, int y, int z, List<T> out) {
+        List<Entry<T>> cell = getCell(chunkKey(x >> 4, z >> 4));
+        if(cell == null) {return 0;}
+        int added = 0;
+        for(int i = 0; i < cell.size(); i++) {
+            Entry<T> entry = cell.get(i);
+            if(entry.contains(x, y, z) && !out.contains(entry.owner)) {
+                out.add(entry.owner);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xffffffffL);
+    }
+
+    private int slot(long key, int length) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (length - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Entry<T>> getCell(long key) {
+        for(int i = slot(key, keys.length); cells[i] != null; i = (i + 1) & (keys.length - 1)) {
+            if(keys[i] == key) {return (List<Entry<T>>) cells[i];}
+        }
+        return null;
+    }
+
+    private List<Entry<T>> getOrCreateCell(long key) {
+        List<Entry<T>> cell = getCell(key);
+        if(cell != null) {return cell;}
+        if((usedCells + 1) * 2 > keys.length) {grow();}
+        cell = new ArrayList<>(2);
+        put(keys, cells, key, cell);
+        usedCells++;
+        return cell;
+    }
+
+    private void grow() {
+        long[] newKeys = new long[keys.length * 2];
+        Object[] newCells = new Object[cells.length * 2];
+        for(int i = 0; i < keys.length; i++) {
+            if(cells[i] != null) {put(newKeys, newCells, keys[i], cells[i]);}
+        }
+        keys = newKeys;
+        cells = newCells;
+    }
+
+    private void put(long[] keys, Object[] cells, long key, Object cell) {
+        int i = slot(key, keys.length);
+        while(cells[i] != null) {
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = key;
+        cells[i] = cell;
+    }
+
+    private static class Entry<T> {
+        private final ProtectedRegion region;
+        private final T owner;
+        private final int minX, minY, minZ, maxX, maxY, maxZ;
+
+        private Entry(ProtectedRegion region, T owner) {
+            this.region = region;
+            this.owner = owner;
+            BlockVector3 min = region.getMinimumPoint();
+            BlockVector3 max = region.getMaximumPoint();
+            this.minX = min.getBlockX(); this.minY = min.getBlockY(); this.minZ = min.getBlockZ();
+            this.maxX = max.getBlockX(); this.maxY = max.getBlockY(); this.maxZ = max.getBlockZ();
+        }
+
+        //Cheap bounding box test first; only polygonal regions need WorldGuard's full check
+        private boolean contains(int x, int y, int z) {
+            return x >= minX && x <= maxX && y >= minY && y <= maxY && z >= minZ && z <= maxZ && region.contains(x, y, z);
+        }
+    }
+}
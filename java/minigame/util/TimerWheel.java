@@ -0,0 +1,121 @@
+package minigame.util;
+
+import minigame.Main;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One scheduler task for every game and lobby countdown in the plugin. Timers sit in a hashed wheel of buckets keyed
+ * by the tick they are due on, so each tick only looks at one bucket, and scheduling or cancelling is O(1).
+ * Timers due further ahead than the wheel's size simply stay in their bucket until a later lap.
+ */
+public final class TimerWheel {
+    private static final int WHEEL_SIZE = 512; //Power of two, ~25 seconds of ticks
+    private static final int MASK = WHEEL_SIZE - 1;
+
+    private static final WheelTask[] buckets = new WheelTask[WHEEL_SIZE];
+    private static final ArrayList<WheelTask> due = new ArrayList<>(); //Reused each tick
+    private static long tick = 0;
+    private static int live = 0;
+    private static BukkitTask task;
+
+    //Metrics
+    private static long ticks = 0;
+    private static long runs = 0;
+    private static long tickNanosTotal = 0;
+    private static long tickNanosMax = 0;
+
+    private TimerWheel() {}
+
+    public static void enable() {
+        task = Bukkit.getScheduler().runTaskTimer(Main.getInstance(), TimerWheel::tick, 1, 1);
+    }
+
+    public static void disable() {
+        if(task != null) {task.cancel();}
+        for(int i = 0; i < WHEEL_SIZE; i++) {
+            for(WheelTask t = buckets[i]; t != null; t = t.next) {
+                t.queued = false;
+            }
+            buckets[i] = null;
+        }
+        live = 0;
+    }
+
+    //Ticks since the plugin was enabled
+    public static long getTick() {
+        return tick;
+    }
+
+    static void add(WheelTask t, long delay) {
+        t.deadline = tick + Math.max(1, delay);
+        int bucket = (int) (t.deadline & MASK);
+        t.prev = null;
+        t.next = buckets[bucket];
+        if(t.next != null) {t.next.prev = t;}
+        buckets[bucket] = t;
+        t.queued = true;
+        live++;
+    }
+
+    static void remove(WheelTask t) {
+        if(!t.queued) {return;}
+        if(t.prev != null) {
+            t.prev.next = t.next;
+        } else {
+            buckets[(int) (t.deadline & MASK)] = t.next;
+        }
+        if(t.next != null) {t.next.prev = t.prev;}
+        t.prev = null;
+        t.next = null;
+        t.queued = false;
+        live--;
+    }
+
+    private static void tick() {
+        long start = System.nanoTime();
+        tick++;
+
+        //Unlink everything due first, since running a task may cancel others in the same bucket
+        for(WheelTask t = buckets[(int) (tick & MASK)]; t != null; ) {
+            WheelTask next = t.next;
+            if(t.deadline <= tick) {
+                remove(t);
+                due.add(t);
+            }
+            t = next;
+        }
+
+        for(int i = 0; i < due.size(); i++) {
+            WheelTask t = due.get(i);
+            if(t.isCancelled()) {continue;}
+            try {
+                t.run();
+            } catch(RuntimeException e) {
+                Main.getInstance().getLogger().severe("Timer threw an exception: "+Misc.getError(e));
+            }
+            runs++;
+            if(t.period > 0 && !t.isCancelled() && !t.queued) {
+                add(t, t.period);
+            }
+        }
+        due.clear();
+
+        long spent = System.nanoTime() - start;
+        ticks++;
+        tickNanosTotal += spent;
+        tickNanosMax = Math.max(tickNanosMax, spent);
+    }
+
+    public static List<String> getStats() {
+        List<String> stats = new ArrayList<>();
+        stats.add("Timers: "+live+" live, "+runs+" runs over "+ticks+" ticks");
+        stats.add("Timers: avg "+(ticks == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(tickNanosTotal / ticks))+"us, max "+
+                TimeUnit.NANOSECONDS.toMicros(tickNanosMax)+"us per tick");
+        return stats;
+    }
+}
@@ -0,0 +1,51 @@
+package minigame.util;
+
+/**
+ * A task run by the shared TimerWheel. Used like a BukkitRunnable: override run(), then schedule it with
+ * runTaskLater or runTaskTimer, and cancel() it from anywhere (including run() itself).
+ */
+public abstract class WheelTask implements Runnable {
+    //Managed by TimerWheel
+    long deadline; //Tick this task is next due on
+    long period; //Ticks between runs, or 0 to run once
+    WheelTask prev, next; //Neighbours in this task's wheel bucket
+    boolean queued = false; //Currently in a wheel bucket
+    private boolean scheduled = false;
+    private boolean cancelled = false;
+
+    /**
+     * Runs this task once
+     * @param delay Ticks to wait; 0 runs it next tick
+     */
+    public WheelTask runTaskLater(long delay) {
+        return schedule(delay, 0);
+    }
+
+    /**
+     * Runs this task repeatedly until cancelled
+     * @param delay Ticks to wait before the first run; 0 runs it next tick
+     * @param period Ticks between runs
+     */
+    public WheelTask runTaskTimer(long delay, long period) {
+        if(period <= 0) {throw new IllegalArgumentException("Period must be positive");}
+        return schedule(delay, period);
+    }
+
+    private WheelTask schedule(long delay, long period) {
+        if(scheduled) {throw new IllegalStateException("Task is already scheduled");}
+        scheduled = true;
+        this.period = period;
+        TimerWheel.add(this, delay);
+        return this;
+    }
+
+    public void cancel() {
+        if(cancelled) {return;}
+        cancelled = true;
+        TimerWheel.remove(this);
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}